@@ -1,21 +1,24 @@
 package com.amazon.ata.resources.debugging.classroom.dependencies;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
 
 /**
  * A service that interacts with Amazon's identity listings. This service can be used to validate a customerId.
+ * <p>
+ * A {@code TIERED} service maps its file; each mapping replaced by a reload is unmapped once validations in
+ * progress on it finish, and {@code close()} releases the current one.
  */
-public class AmazonIdentityService {
+public class AmazonIdentityService implements Closeable {
+
+    private static final double TIERED_FALSE_POSITIVE_RATE = 0.01;
 
     private File customerIdFile;
-    private List<String> customerIdentities;
+    private final FileReloader<CustomerIdLookup> customerIdentities;
 
     /**
      * Creates an in memory service to validate Amazon customer identities. Customers that exist within the provided
@@ -24,17 +27,28 @@ public class AmazonIdentityService {
      * @throws IllegalStateException if the file cannot be read and the service "started"
      */
     public AmazonIdentityService(File customerIdFile) {
+        this(customerIdFile, IdentityMode.EXACT);
+    }
+
+    /**
+     * Creates a service to validate Amazon customer identities, holding them as {@code mode} specifies.
+     * @param customerIdFile - for {@code EXACT}, a file with one customerId per line; for {@code TIERED}, a file
+     *                       compiled from one with {@code SortedCustomerIdFile.compile()}
+     * @param mode - how to hold the customer identities
+     * @throws IllegalStateException if the file cannot be read and the service "started"
+     */
+    public AmazonIdentityService(File customerIdFile, IdentityMode mode) {
         this.customerIdFile = customerIdFile;
         try {
-            List<String> productDescriptions = FileUtils.readLines(customerIdFile, Charset.defaultCharset());
-            customerIdentities = new ArrayList<>(productDescriptions);
+            customerIdentities = new FileReloader<>(customerIdFile, file -> loadCustomerIdentities(file, mode));
         } catch (IOException e) {
             throw new IllegalStateException("Unable to connect to the AmazonIdentityService.", e);
         }
     }
 
     /**
-     * Returns true if the provided customerId corresponds to a valid Amazon account.
+     * Returns true if the provided customerId corresponds to a valid Amazon account. Lookups never scan the full
+     * set of customers.
      * @param customerId - the id of the customer to validate. The customerId cannot be null/empty/whitespace.
      * @return true if the customerId exists, false otherwise
      */
@@ -42,6 +56,39 @@ public class AmazonIdentityService {
         if(StringUtils.isBlank(customerId)){
             throw new IllegalArgumentException("A customerId must be provided.");
         }
-        return customerIdentities.contains(customerId);
+        return customerIdentities.read(lookup -> lookup.contains(customerId));
+    }
+
+    /**
+     * Starts watching the customer file, reloading it in the background whenever it changes. Validations keep
+     * using the previous customers until the new ones are fully loaded, then switch to them atomically.
+     * @param pollInterval - how often to check the file for changes
+     */
+    public void startWatching(Duration pollInterval) {
+        customerIdentities.startPolling(pollInterval);
+    }
+
+    /**
+     * Stops watching the customer file. The last loaded customers stay in use.
+     */
+    public void stopWatching() {
+        customerIdentities.stopPolling();
+    }
+
+    /**
+     * Stops watching the customer file and releases the customers. Validations made after this throw
+     * {@code IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        customerIdentities.close();
+    }
+
+    private static CustomerIdLookup loadCustomerIdentities(File customerIdFile, IdentityMode mode) throws IOException {
+        if (mode == IdentityMode.TIERED) {
+            return new TieredCustomerIdLookup(SortedCustomerIdFile.open(customerIdFile), TIERED_FALSE_POSITIVE_RATE);
+        }
+
+        return CustomerIdFileLoader.load(customerIdFile, Runtime.getRuntime().availableProcessors());
     }
 }
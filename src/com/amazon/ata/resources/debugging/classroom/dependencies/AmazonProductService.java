@@ -2,40 +2,55 @@ package com.amazon.ata.resources.debugging.classroom.dependencies;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.commons.io.FileUtils;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.Closeable;
 import java.io.File;
-import java.nio.charset.Charset;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * A service that interacts with Amazon's product catalogue. Products can be looked up by their asin.
+ * <p>
+ * A {@code LAZY} catalogue keeps its file open; each catalogue replaced by a reload is closed once lookups in
+ * progress on it finish, and {@code close()} releases the current one.
  */
-public class AmazonProductService {
+public class AmazonProductService implements Closeable {
+
+    private static final int LAZY_CACHE_SIZE = 10_000;
 
     private File catalogueFile;
     private ObjectMapper mapper;
-    private Map<String, Product> asinMapping;
+    private final ObjectReader productReader;
+    private final FileReloader<ProductLookup> catalog;
 
     /**
      * Creates an in memory Amazon catalog service. Reads product information from a file.
      * @param catalogueFile - lines of JSON, each representing a Product
      */
     public AmazonProductService(File catalogueFile) {
+        this(catalogueFile, CatalogMode.EAGER);
+    }
+
+    /**
+     * Creates an Amazon catalog service, holding product information as {@code mode} specifies.
+     * @param catalogueFile - for {@code EAGER} and {@code LAZY}, lines of JSON, each representing a Product; for
+     *                      {@code SNAPSHOT}, a file compiled from one with {@code ProductSnapshotFile.compile()}
+     * @param mode - how to hold the products
+     */
+    public AmazonProductService(File catalogueFile, CatalogMode mode) {
         this.catalogueFile = catalogueFile;
         this.mapper = new ObjectMapper();
         mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
-        asinMapping = new HashMap<>();
+        this.productReader = mapper.readerFor(Product.class);
         try {
-            List<String> productDescriptions = FileUtils.readLines(catalogueFile, Charset.defaultCharset());
-
-            for (String productDescription : productDescriptions){
-                Product product = mapper.readValue(productDescription, Product.class);
-                asinMapping.put(product.getAsin(), product);
-            }
+            catalog = new FileReloader<>(catalogueFile, file -> loadCatalog(file, mode));
         } catch (Exception e) {
             throw new IllegalStateException("Unable to connect to the ProductService.", e);
         }
@@ -50,6 +65,187 @@ public class AmazonProductService {
         if(StringUtils.isBlank(asin)){
             throw new IllegalArgumentException("An asin must be provided.");
         }
-        return asinMapping.getOrDefault(asin, null);
+        return catalog.read(lookup -> lookup.getProduct(asin));
+    }
+
+    /**
+     * Retrieve product information for several products at once. Every product comes from the same version of the
+     * catalogue, even if it is reloaded during the call.
+     * @param asins - the asin identifiers for the products to be retrieved. No asin can be null/empty/whitespace.
+     * @return the Product for each asin that corresponds to a catalogue item, keyed by asin. Asins that are not in the
+     *         catalogue are left out.
+     */
+    public Map<String, Product> getProductsByAsins(Collection<String> asins) {
+        if (asins == null) {
+            throw new IllegalArgumentException("A collection of asins must be provided.");
+        }
+
+        return catalog.read(lookup -> {
+            Map<String, Product> products = new HashMap<>();
+            for (String asin : asins) {
+                if(StringUtils.isBlank(asin)){
+                    throw new IllegalArgumentException("An asin must be provided.");
+                }
+                Product product = lookup.getProduct(asin);
+                if (product != null) {
+                    products.put(asin, product);
+                }
+            }
+            return products;
+        });
+    }
+
+    /**
+     * Retrieve every product a vendor offers, from a vendor index built when the catalogue is loaded rather than by
+     * scanning the catalogue.
+     * @param vendor - the vendor whose products to retrieve. The vendor cannot be null/empty/whitespace.
+     * @return the vendor's products, or an empty list if the vendor has none in the catalogue
+     */
+    public List<Product> getProductsByVendor(String vendor) {
+        if(StringUtils.isBlank(vendor)){
+            throw new IllegalArgumentException("A vendor must be provided.");
+        }
+
+        return catalog.read(lookup -> {
+            List<Product> products = new ArrayList<>();
+            for (String asin : lookup.getAsinsByVendor(vendor)) {
+                products.add(lookup.getProduct(asin));
+            }
+            return products;
+        });
+    }
+
+    /**
+     * Retrieve a product's list price as a primitive number of cents. Cheaper than {@code getProductByAsin()} for
+     * price arithmetic: no Product or BigDecimal is created, and prices can be summed without rounding.
+     * @param asin - the asin identifier for the product. The asin cannot be null/empty/whitespace.
+     * @return the list price in cents, or PriceCents.NONE if the asin is not a catalogue item or has no price
+     */
+    public long getListPriceCents(String asin) {
+        if(StringUtils.isBlank(asin)){
+            throw new IllegalArgumentException("An asin must be provided.");
+        }
+        return catalog.read(lookup -> lookup.getListPriceCents(asin));
+    }
+
+    /**
+     * Retrieve the list prices of several products at once, in cents, from the same version of the catalogue.
+     * @param asins - the asin identifiers for the products. No asin can be null/empty/whitespace.
+     * @return the list price in cents of each asin, in the same order as the asins, with PriceCents.NONE for asins
+     *         that are not catalogue items or have no price
+     */
+    public long[] getListPricesCents(List<String> asins) {
+        if (asins == null) {
+            throw new IllegalArgumentException("A list of asins must be provided.");
+        }
+
+        return catalog.read(lookup -> {
+            long[] listPricesCents = new long[asins.size()];
+            int i = 0;
+            for (String asin : asins) {
+                if(StringUtils.isBlank(asin)){
+                    throw new IllegalArgumentException("An asin must be provided.");
+                }
+                listPricesCents[i++] = lookup.getListPriceCents(asin);
+            }
+            return listPricesCents;
+        });
+    }
+
+    /**
+     * Totals the list prices of several products, in cents. An asin that appears more than once is counted each
+     * time it appears, so a basket of products can be totalled directly.
+     * @param asins - the asin identifiers for the products. No asin can be null/empty/whitespace.
+     * @return the total list price in cents of the asins that are priced catalogue items
+     */
+    public long sumListPriceCents(Collection<String> asins) {
+        if (asins == null) {
+            throw new IllegalArgumentException("A collection of asins must be provided.");
+        }
+
+        return catalog.read(lookup -> {
+            long totalCents = 0;
+            for (String asin : asins) {
+                if(StringUtils.isBlank(asin)){
+                    throw new IllegalArgumentException("An asin must be provided.");
+                }
+                long listPriceCents = lookup.getListPriceCents(asin);
+                if (listPriceCents != PriceCents.NONE) {
+                    totalCents = Math.addExact(totalCents, listPriceCents);
+                }
+            }
+            return totalCents;
+        });
+    }
+
+    /**
+     * Totals the list prices of every product a vendor offers, in cents.
+     * @param vendor - the vendor whose products to total. The vendor cannot be null/empty/whitespace.
+     * @return the total list price in cents of the vendor's priced products, or 0 if it has none
+     */
+    public long sumListPriceCentsByVendor(String vendor) {
+        if(StringUtils.isBlank(vendor)){
+            throw new IllegalArgumentException("A vendor must be provided.");
+        }
+
+        return catalog.read(lookup -> {
+            long totalCents = 0;
+            for (String asin : lookup.getAsinsByVendor(vendor)) {
+                long listPriceCents = lookup.getListPriceCents(asin);
+                if (listPriceCents != PriceCents.NONE) {
+                    totalCents = Math.addExact(totalCents, listPriceCents);
+                }
+            }
+            return totalCents;
+        });
+    }
+
+    /**
+     * Returns whether the product with the given asin can be subscribed to with Subscribe and Save. Cheaper than
+     * {@code getProductByAsin()}: no Product is created or read.
+     * @param asin - the asin identifier for the product to check. The asin cannot be null/empty/whitespace.
+     * @return UNKNOWN_ASIN if the asin is not a catalogue item, NOT_SNS if the item is not eligible, ELIGIBLE otherwise
+     */
+    public Eligibility checkEligibility(String asin) {
+        if(StringUtils.isBlank(asin)){
+            throw new IllegalArgumentException("An asin must be provided.");
+        }
+        return catalog.read(lookup -> lookup.checkEligibility(asin));
+    }
+
+    /**
+     * Starts watching the catalogue file, reloading it in the background whenever it changes. Lookups keep using
+     * the previous catalogue until the new one is fully loaded, then switch to it atomically.
+     * @param pollInterval - how often to check the file for changes
+     */
+    public void startWatching(Duration pollInterval) {
+        catalog.startPolling(pollInterval);
+    }
+
+    /**
+     * Stops watching the catalogue file. The last loaded catalogue stays in use.
+     */
+    public void stopWatching() {
+        catalog.stopPolling();
+    }
+
+    /**
+     * Stops watching the catalogue file and releases the catalogue. Lookups made after this throw
+     * {@code IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        catalog.close();
+    }
+
+    private ProductLookup loadCatalog(File file, CatalogMode mode) throws IOException {
+        if (mode == CatalogMode.LAZY) {
+            return LazyProductCatalog.index(file, productReader, LAZY_CACHE_SIZE);
+        }
+        if (mode == CatalogMode.SNAPSHOT) {
+            return ProductSnapshotFile.open(file);
+        }
+
+        return ProductCatalog.load(file, productReader, Runtime.getRuntime().availableProcessors());
     }
 }
@@ -0,0 +1,19 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+/**
+ * How {@code AmazonProductService} holds the products it serves.
+ */
+public enum CatalogMode {
+    /** Every product is parsed at startup and held in heap. */
+    EAGER,
+    /**
+     * Only each ASIN's position in the catalogue file is held in heap; products are parsed on first lookup and
+     * kept in a bounded cache of the most recently used.
+     */
+    LAZY,
+    /**
+     * Nothing is held in heap; products are read from a memory-mapped snapshot compiled with
+     * {@code ProductSnapshotFile.compile()}.
+     */
+    SNAPSHOT
+}
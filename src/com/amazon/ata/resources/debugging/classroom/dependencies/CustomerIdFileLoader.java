@@ -0,0 +1,167 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Loads a file with one customer ID per line into a {@code ShardedCustomerIdSet}, in parallel.
+ * <p>
+ * The file is split into byte ranges that are read and parsed concurrently. A range owns every line that starts
+ * inside it, so each thread skips the partial line at the front of its range and reads past its end to finish its
+ * last line. Lines go straight from the read buffer into the set; no line list or per-line String is created for
+ * ASCII IDs.
+ */
+final class CustomerIdFileLoader {
+
+    // "amzn1.account." plus a 28 character ID and a line break
+    private static final int TYPICAL_LINE_LENGTH = 43;
+    private static final long MIN_RANGE_LENGTH = 1 << 20;
+    private static final int BUFFER_LENGTH = 1 << 16;
+    private static final int RANGES_PER_THREAD = 4;
+
+    private CustomerIdFileLoader() {
+    }
+
+    /**
+     * Loads every line of {@code customerIdFile} into a new set.
+     *
+     * @param customerIdFile the file to load
+     * @param parallelism    how many threads' worth of work to split the file into
+     * @return the loaded set
+     * @throws IOException if the file cannot be read
+     */
+    static ShardedCustomerIdSet load(File customerIdFile, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(customerIdFile.toPath(), StandardOpenOption.READ)) {
+            long fileLength = channel.size();
+            int rangeCount = (int) Math.max(1, Math.min((long) parallelism * RANGES_PER_THREAD,
+                                                        fileLength / MIN_RANGE_LENGTH));
+            ShardedCustomerIdSet customerIds = new ShardedCustomerIdSet(
+                (int) Math.min(fileLength / TYPICAL_LINE_LENGTH, Integer.MAX_VALUE), parallelism * RANGES_PER_THREAD);
+
+            try {
+                IntStream.range(0, rangeCount).parallel().forEach(range -> {
+                    try {
+                        loadRange(channel,
+                                  fileLength * range / rangeCount,
+                                  fileLength * (range + 1) / rangeCount,
+                                  customerIds);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            return customerIds;
+        }
+    }
+
+    private static void loadRange(FileChannel channel, long start, long end, ShardedCustomerIdSet customerIds)
+        throws IOException {
+        // start one byte early so a range beginning exactly on a line start sees the line break before it
+        long position = start == 0 ? 0 : start - 1;
+        boolean skippingPartialLine = start != 0;
+        long lineStartPosition = position;
+
+        byte[] buffer = new byte[BUFFER_LENGTH];
+        int filled = 0;
+        int lineStart = 0;
+        LineSequence line = new LineSequence();
+
+        while (lineStartPosition < end) {
+            if (filled == buffer.length) {
+                // keep the unfinished line, growing the buffer if the line fills it
+                int carried = filled - lineStart;
+                if (lineStart == 0) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                } else {
+                    System.arraycopy(buffer, lineStart, buffer, 0, carried);
+                }
+                filled = carried;
+                lineStart = 0;
+            }
+
+            int read = channel.read(ByteBuffer.wrap(buffer, filled, buffer.length - filled), position);
+            if (read < 0) {
+                if (!skippingPartialLine && filled > lineStart) {
+                    addLine(buffer, lineStart, filled, line, customerIds);
+                }
+                return;
+            }
+
+            int scanFrom = filled;
+            filled += read;
+            position += read;
+            for (int i = scanFrom; i < filled && lineStartPosition < end; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+
+                if (skippingPartialLine) {
+                    skippingPartialLine = false;
+                } else {
+                    addLine(buffer, lineStart, i, line, customerIds);
+                }
+                lineStartPosition += i + 1 - lineStart;
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    private static void addLine(byte[] buffer, int from, int to, LineSequence line, ShardedCustomerIdSet customerIds) {
+        int lineEnd = to > from && buffer[to - 1] == '\r' ? to - 1 : to;
+
+        for (int i = from; i < lineEnd; i++) {
+            if (buffer[i] < 0) {
+                customerIds.add(new String(buffer, from, lineEnd - from, Charset.defaultCharset()));
+                return;
+            }
+        }
+
+        customerIds.add(line.wrap(buffer, from, lineEnd));
+    }
+
+    /**
+     * An ASCII line in the read buffer, viewed as characters without copying. Reused for every line.
+     */
+    private static final class LineSequence implements CharSequence {
+        private byte[] bytes;
+        private int from;
+        private int to;
+
+        LineSequence wrap(byte[] pBytes, int pFrom, int pTo) {
+            this.bytes = pBytes;
+            this.from = pFrom;
+            this.to = pTo;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) bytes[from + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, from + start, end - start, Charset.defaultCharset());
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, from, to - from, Charset.defaultCharset());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A structure that can answer whether a customer ID exists. Implementations are safe for concurrent lookups once
+ * built.
+ * <p>
+ * Implementations that map a file release it on {@code close()}; no lookups may be made after that.
+ */
+public interface CustomerIdLookup extends Closeable {
+
+    /**
+     * Returns whether the customer ID exists.
+     *
+     * @param customerId the ID to look up
+     * @return true if the ID is present, false otherwise
+     */
+    boolean contains(String customerId);
+
+    /**
+     * Releases any file held by this lookup. Does nothing by default.
+     *
+     * @throws IOException if the file cannot be released
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
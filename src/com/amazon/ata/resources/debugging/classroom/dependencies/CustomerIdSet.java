@@ -0,0 +1,246 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compact set of customer IDs with constant-time lookups.
+ * <p>
+ * IDs are kept as bytes in a single shared array and found through an open-addressing hash table of offsets
+ * into it, so each ID costs about its length plus a few bytes of table, rather than the String, char array and
+ * hash entry a {@code HashSet<String>} needs. The {@code amzn1.account.} prefix every customer ID shares is not
+ * stored. IDs that cannot be stored as single bytes (non-ASCII, or longer than 255 characters) fall back to a
+ * regular {@code HashSet}.
+ * <p>
+ * Not safe for concurrent modification; build the set first, then share it for lookups.
+ */
+public class CustomerIdSet implements CustomerIdLookup {
+
+    static final String ACCOUNT_PREFIX = "amzn1.account.";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final byte UNPREFIXED = 0;
+    private static final byte PREFIXED = 1;
+    private static final int HEADER_LENGTH = 2;
+    // a customer ID is 28 characters after the prefix
+    private static final int TYPICAL_KEY_LENGTH = HEADER_LENGTH + 28;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+    private static final int MAX_ARENA_LENGTH = Integer.MAX_VALUE - 8;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    // each key is stored as [length][prefix marker][ASCII bytes of the ID after any prefix]
+    private byte[] arena;
+    private int arenaLength;
+    // each slot holds the key's hash in the high half and its arena offset + 1 in the low half, so a probe reads
+    // one array; 0 marks an empty slot
+    private long[] slots;
+    private int size;
+    private final Set<String> otherIds = new HashSet<>();
+
+    /**
+     * Creates an empty set sized to hold {@code expectedSize} IDs without resizing.
+     *
+     * @param expectedSize how many IDs the set is expected to hold
+     */
+    public CustomerIdSet(int expectedSize) {
+        int ids = Math.max(expectedSize, 8);
+        int tableSize = tableSizeFor((long) Math.ceil(ids / MAX_LOAD_FACTOR));
+        slots = new long[tableSize];
+        arena = new byte[(int) Math.min((long) ids * TYPICAL_KEY_LENGTH, MAX_ARENA_LENGTH)];
+    }
+
+    /**
+     * Adds a customer ID to the set.
+     *
+     * @param customerId the ID to add
+     * @return true if the ID was added, false if it was already present
+     */
+    public boolean add(String customerId) {
+        return add((CharSequence) customerId);
+    }
+
+    /**
+     * Adds a customer ID to the set. The characters are copied, so {@code customerId} may be reused afterwards.
+     */
+    boolean add(CharSequence customerId) {
+        int start = keyStart(customerId);
+        if (!isStorable(customerId, start)) {
+            return otherIds.add(customerId.toString());
+        }
+
+        int hash = hash(customerId);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            if ((int) (slots[slot] >>> 32) == hash && keyEquals((int) slots[slot] - 1, customerId, start)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        slots[slot] = (long) hash << 32 | (appendKey(customerId, start) + 1);
+        size++;
+        if (size > slots.length * MAX_LOAD_FACTOR && slots.length < MAX_TABLE_SIZE) {
+            resize();
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns whether the set holds a customer ID. Does not allocate.
+     *
+     * @param customerId the ID to look up
+     * @return true if the ID is present, false otherwise
+     */
+    @Override
+    public boolean contains(String customerId) {
+        // an ID that could not be stored as bytes never matches a stored key, so only the fallback set can hold it
+        int hash = hash(customerId);
+        int start = keyStart(customerId);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            if ((int) (slots[slot] >>> 32) == hash && keyEquals((int) slots[slot] - 1, customerId, start)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return !otherIds.isEmpty() && otherIds.contains(customerId);
+    }
+
+    /**
+     * Returns the number of IDs in the set.
+     *
+     * @return the number of IDs
+     */
+    public int size() {
+        return size + otherIds.size();
+    }
+
+    /**
+     * Returns the hash the set files {@code customerId} under. Its low bits pick the slot, so callers spreading IDs
+     * across several sets should use the high bits.
+     */
+    static int hashOf(CharSequence customerId) {
+        return hash(customerId);
+    }
+
+    private static int tableSizeFor(long minimumSize) {
+        if (minimumSize >= MAX_TABLE_SIZE) {
+            return MAX_TABLE_SIZE;
+        }
+
+        return Integer.highestOneBit((int) minimumSize - 1) << 1;
+    }
+
+    private static int keyStart(CharSequence customerId) {
+        if (customerId.length() < ACCOUNT_PREFIX.length()) {
+            return 0;
+        }
+        for (int i = 0; i < ACCOUNT_PREFIX.length(); i++) {
+            if (customerId.charAt(i) != ACCOUNT_PREFIX.charAt(i)) {
+                return 0;
+            }
+        }
+
+        return ACCOUNT_PREFIX.length();
+    }
+
+    private static boolean isStorable(CharSequence customerId, int start) {
+        if (customerId.length() - start > MAX_KEY_LENGTH) {
+            return false;
+        }
+        for (int i = start; i < customerId.length(); i++) {
+            if (customerId.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int hash(CharSequence customerId) {
+        // the same polynomial as String.hashCode(), so a String's cached hash can be used as is
+        int h;
+        if (customerId instanceof String) {
+            h = customerId.hashCode();
+        } else {
+            h = 0;
+            for (int i = 0; i < customerId.length(); i++) {
+                h = 31 * h + customerId.charAt(i);
+            }
+        }
+
+        // spread the bits so that linear probing on the low bits stays short
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+
+        return h;
+    }
+
+    private boolean keyEquals(int offset, CharSequence customerId, int start) {
+        int length = customerId.length() - start;
+        if ((arena[offset] & 0xFF) != length || arena[offset + 1] != (start > 0 ? PREFIXED : UNPREFIXED)) {
+            return false;
+        }
+
+        int keyOffset = offset + HEADER_LENGTH;
+        for (int i = 0; i < length; i++) {
+            if (arena[keyOffset + i] != customerId.charAt(start + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int appendKey(CharSequence customerId, int start) {
+        int length = customerId.length() - start;
+        ensureArenaCapacity(HEADER_LENGTH + length);
+
+        int offset = arenaLength;
+        arena[offset] = (byte) length;
+        arena[offset + 1] = start > 0 ? PREFIXED : UNPREFIXED;
+        for (int i = 0; i < length; i++) {
+            arena[offset + HEADER_LENGTH + i] = (byte) customerId.charAt(start + i);
+        }
+        arenaLength += HEADER_LENGTH + length;
+
+        return offset;
+    }
+
+    private void ensureArenaCapacity(int additional) {
+        if (arenaLength + additional <= arena.length) {
+            return;
+        }
+        if (arenaLength > MAX_ARENA_LENGTH - additional) {
+            throw new IllegalStateException("Too many customer IDs to hold in a CustomerIdSet.");
+        }
+
+        long newLength = Math.max((long) arena.length * 2, arenaLength + additional);
+        arena = Arrays.copyOf(arena, (int) Math.min(newLength, MAX_ARENA_LENGTH));
+    }
+
+    private void resize() {
+        long[] oldSlots = slots;
+        slots = new long[oldSlots.length * 2];
+
+        int mask = slots.length - 1;
+        for (long entry : oldSlots) {
+            if (entry == 0) {
+                continue;
+            }
+            int slot = (int) (entry >>> 32) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry;
+        }
+    }
+}
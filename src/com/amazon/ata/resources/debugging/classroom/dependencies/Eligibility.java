@@ -0,0 +1,13 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+/**
+ * Whether a product can be subscribed to with Subscribe and Save.
+ */
+public enum Eligibility {
+    /** The ASIN is not in the catalogue. */
+    UNKNOWN_ASIN,
+    /** The product exists but is not eligible for Subscribe and Save. */
+    NOT_SNS,
+    /** The product exists and is eligible for Subscribe and Save. */
+    ELIGIBLE
+}
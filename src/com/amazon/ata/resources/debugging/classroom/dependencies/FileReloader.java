@@ -0,0 +1,227 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Holds an immutable structure loaded from a file, and rebuilds it when the file changes.
+ * <p>
+ * A rebuild happens entirely off to the side; the new structure is published with a single volatile write, so
+ * readers calling {@code get()} never block and always see either the old structure or the complete new one. A
+ * file that fails to load (for example, one still being written) leaves the current structure in place, and is
+ * retried on the next check.
+ * <p>
+ * The file is considered changed when its last-modified time or length differs from the last successful load.
+ * Replace files by writing a new file and renaming it over the old one, so a check never sees a partial file.
+ * <p>
+ * Structures that hold resources should be {@code Closeable} and be read through {@code read()}. A replaced
+ * structure is closed as soon as the last {@code read()} still using it returns, and {@code close()} does the same
+ * for the current one. Once closed, {@code read()} throws rather than waiting for a structure that never comes.
+ *
+ * @param <T> the type of structure loaded from the file
+ */
+public class FileReloader<T> implements Closeable {
+
+    /**
+     * Builds the structure from a file.
+     *
+     * @param <T> the type of structure built
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        /**
+         * Builds the structure.
+         *
+         * @param file the file to read
+         * @return the structure, which must not change after it is returned
+         * @throws IOException if the file cannot be read or parsed
+         */
+        T load(File file) throws IOException;
+    }
+
+    private final File file;
+    private final Loader<T> loader;
+    private volatile Generation<T> current;
+    private long loadedLastModified;
+    private long loadedLength;
+    private ScheduledExecutorService poller;
+    private volatile boolean closed;
+
+    /**
+     * Loads the structure from the file.
+     *
+     * @param file   the file to load from
+     * @param loader builds the structure from the file
+     * @throws IOException if the initial load fails
+     */
+    public FileReloader(File file, Loader<T> loader) throws IOException {
+        this.file = file;
+        this.loader = loader;
+        reload(file.lastModified(), file.length());
+    }
+
+    /**
+     * Returns the most recently loaded structure. Never blocks.
+     * <p>
+     * The structure is not held open for the caller, so {@code Closeable} structures should be used through
+     * {@code read()} instead.
+     *
+     * @return the current structure
+     */
+    public T get() {
+        return current.value;
+    }
+
+    /**
+     * Applies {@code reader} to the most recently loaded structure, keeping that structure open until it returns
+     * even if a reload replaces it meanwhile. Never blocks.
+     * <p>
+     * Throws {@code IllegalStateException} if this reloader has been closed.
+     *
+     * @param reader the function to apply
+     * @param <R>    the type of result
+     * @return the result of {@code reader}
+     */
+    public <R> R read(Function<? super T, R> reader) {
+        Generation<T> generation = acquire();
+        try {
+            return reader.apply(generation.value);
+        } finally {
+            generation.release();
+        }
+    }
+
+    /**
+     * Reloads the structure if the file has changed since it was last loaded.
+     *
+     * @return true if a new structure was loaded, false if the file was unchanged or failed to load, or this
+     *         reloader has been closed
+     */
+    public synchronized boolean reloadIfChanged() {
+        if (closed) {
+            return false;
+        }
+
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (lastModified == loadedLastModified && length == loadedLength) {
+            return false;
+        }
+
+        try {
+            reload(lastModified, length);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Starts checking the file for changes in the background. Does nothing if already started.
+     *
+     * @param pollInterval how often to check the file
+     */
+    public synchronized void startPolling(Duration pollInterval) {
+        if (poller != null) {
+            return;
+        }
+
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-reloader-" + file.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = pollInterval.toNanos();
+        poller.scheduleWithFixedDelay(this::reloadIfChanged, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops checking the file for changes. The current structure stays available.
+     */
+    public synchronized void stopPolling() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    /**
+     * Stops checking the file for changes, and closes the current structure once no {@code read()} is using it.
+     * Later reads fail.
+     */
+    @Override
+    public synchronized void close() {
+        // set before retiring, so a reader that sees the current structure retired also sees the reloader closed
+        closed = true;
+        stopPolling();
+        current.retire();
+    }
+
+    private void reload(long lastModified, long length) throws IOException {
+        Generation<T> replaced = current;
+        current = new Generation<>(loader.load(file));
+        loadedLastModified = lastModified;
+        loadedLength = length;
+        if (replaced != null) {
+            replaced.retire();
+        }
+    }
+
+    private Generation<T> acquire() {
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Reloader for " + file.getName() + " has been closed.");
+            }
+            Generation<T> generation = current;
+            generation.readers.incrementAndGet();
+            // retired is set after the swap, so a reader that sees it unset is counted before any close check
+            if (!generation.retired) {
+                return generation;
+            }
+            generation.release();
+        }
+    }
+
+    /**
+     * One loaded structure, with a count of the reads using it.
+     */
+    private static final class Generation<T> {
+        private final T value;
+        private final AtomicInteger readers = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean retired;
+
+        private Generation(T value) {
+            this.value = value;
+        }
+
+        private void retire() {
+            retired = true;
+            closeIfUnused();
+        }
+
+        private void release() {
+            if (readers.decrementAndGet() == 0 && retired) {
+                closeIfUnused();
+            }
+        }
+
+        private void closeIfUnused() {
+            if (readers.get() == 0 && value instanceof Closeable && closed.compareAndSet(false, true)) {
+                try {
+                    ((Closeable) value).close();
+                } catch (IOException e) {
+                    // the structure is no longer served, so there is nothing left to fail
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+/**
+ * How {@code AmazonIdentityService} holds the customer IDs it validates against.
+ */
+public enum IdentityMode {
+    /** Every ID is held in heap, read from a text file with one customer ID per line. */
+    EXACT,
+    /**
+     * Only a Bloom filter is held in heap; IDs it might contain are confirmed by binary search of a memory-mapped
+     * file compiled with {@code SortedCustomerIdFile.compile()}.
+     */
+    TIERED
+}
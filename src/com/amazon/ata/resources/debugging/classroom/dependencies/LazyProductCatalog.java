@@ -0,0 +1,267 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.primitives.ImmutableIntArray;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A product catalogue that holds only where each product is in the catalogue file. Startup is a single scan that
+ * records each ASIN with the byte offset and length of its JSON, its SNS flag, its vendor and its price in cents;
+ * no products or titles are created, so eligibility checks, prices and vendor lookups never parse a product.
+ * Products are parsed on first lookup and kept in a bounded cache of the most recently used, so heap tracks the
+ * products actually looked up rather than the size of the catalogue.
+ * <p>
+ * The catalogue file stays open until the catalogue is closed, and is read through that open file, so a catalogue
+ * replaced by renaming a new file over it keeps reading the file it indexed.
+ */
+public class LazyProductCatalog implements ProductLookup {
+
+    // a position packs the byte offset into the upper 40 bits and the length into the lower 24
+    private static final int LENGTH_BITS = 24;
+    private static final long MAX_PRODUCT_LENGTH = (1L << LENGTH_BITS) - 1;
+
+    private final FileChannel channel;
+    private final ObjectReader productReader;
+    private final ProductEligibilityIndex eligibility;
+    private final long[] positions;
+    private final ProductPriceIndex prices;
+    private final Map<String, ImmutableIntArray> indexesByVendor;
+    private final LoadingCache<Integer, Product> products;
+
+    private LazyProductCatalog(FileChannel channel, ObjectReader productReader, ProductEligibilityIndex eligibility,
+                               long[] positions, long[] listPriceCents, Map<String, ImmutableIntArray> indexesByVendor,
+                               int cacheSize) {
+        this.channel = channel;
+        this.productReader = productReader;
+        this.eligibility = eligibility;
+        this.positions = positions;
+        this.prices = new ProductPriceIndex(eligibility, listPriceCents);
+        this.indexesByVendor = indexesByVendor;
+        this.products = CacheBuilder.newBuilder()
+            .maximumSize(cacheSize)
+            .build(new CacheLoader<Integer, Product>() {
+                @Override
+                public Product load(Integer index) throws IOException {
+                    return readProduct(index);
+                }
+            });
+    }
+
+    /**
+     * Indexes a catalogue file. If an ASIN appears more than once, the last product with it is served.
+     *
+     * @param catalogueFile JSON products, usually one per line
+     * @param productReader the reader to parse products with when they are looked up
+     * @param cacheSize     the most parsed products to keep
+     * @return the indexed catalogue
+     * @throws IOException if the file cannot be read, is not a sequence of JSON objects, or has a product without
+     *                     an ASIN
+     */
+    public static LazyProductCatalog index(File catalogueFile, ObjectReader productReader, int cacheSize)
+        throws IOException {
+        FileChannel channel = FileChannel.open(catalogueFile.toPath(), StandardOpenOption.READ);
+        try {
+            List<IndexEntry> entries = scan(channel, productReader.getFactory());
+            entries.sort(Comparator.comparing(entry -> entry.asin));
+
+            String[] sortedAsins = new String[entries.size()];
+            long[] positions = new long[entries.size()];
+            BitSet snsFlags = new BitSet(entries.size());
+            String[] vendors = new String[entries.size()];
+            long[] listPriceCents = new long[entries.size()];
+            int count = 0;
+            for (IndexEntry entry : entries) {
+                // the sort is stable, so the last of a run of equal ASINs is the last in the file
+                if (count > 0 && sortedAsins[count - 1].equals(entry.asin)) {
+                    count--;
+                }
+                sortedAsins[count] = entry.asin;
+                positions[count] = entry.position;
+                snsFlags.set(count, entry.sns);
+                vendors[count] = entry.vendor;
+                listPriceCents[count] = entry.listPriceCents;
+                count++;
+            }
+
+            Map<String, ImmutableIntArray.Builder> vendorIndexes = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                if (vendors[i] != null) {
+                    vendorIndexes.computeIfAbsent(vendors[i], vendor -> ImmutableIntArray.builder()).add(i);
+                }
+            }
+            Map<String, ImmutableIntArray> indexesByVendor = new HashMap<>();
+            vendorIndexes.forEach((vendor, indexes) -> indexesByVendor.put(vendor, indexes.build()));
+
+            ProductEligibilityIndex eligibility =
+                new ProductEligibilityIndex(Arrays.copyOf(sortedAsins, count), snsFlags);
+            return new LazyProductCatalog(channel, productReader, eligibility, Arrays.copyOf(positions, count),
+                                          Arrays.copyOf(listPriceCents, count), indexesByVendor, cacheSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Product getProduct(String asin) {
+        int index = eligibility.indexOf(asin);
+        if (index < 0) {
+            return null;
+        }
+
+        try {
+            return products.get(index);
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException("Unable to read product " + asin + " from the catalogue.",
+                                           (IOException) e.getCause());
+        }
+    }
+
+    @Override
+    public Eligibility checkEligibility(String asin) {
+        return eligibility.checkEligibility(asin);
+    }
+
+    @Override
+    public long getListPriceCents(String asin) {
+        return prices.getListPriceCents(asin);
+    }
+
+    @Override
+    public List<String> getAsinsByVendor(String vendor) {
+        ImmutableIntArray indexes = indexesByVendor.get(vendor);
+        if (indexes == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> asins = new ArrayList<>(indexes.length());
+        indexes.forEach(index -> asins.add(eligibility.asinAt(index)));
+        return asins;
+    }
+
+    @Override
+    public int size() {
+        return eligibility.size();
+    }
+
+    /**
+     * Closes the catalogue file. Products that are not cached can no longer be read.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Returns the number of products currently parsed and cached.
+     *
+     * @return the number of cached products
+     */
+    public long cachedSize() {
+        return products.size();
+    }
+
+    private Product readProduct(int index) throws IOException {
+        long offset = positions[index] >>> LENGTH_BITS;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (positions[index] & MAX_PRODUCT_LENGTH));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Catalogue file is shorter than when it was indexed.");
+            }
+        }
+
+        return productReader.readValue(buffer.array());
+    }
+
+    private static List<IndexEntry> scan(FileChannel channel, JsonFactory factory) throws IOException {
+        List<IndexEntry> entries = new ArrayList<>();
+        try (JsonParser parser = factory.createParser(Channels.newInputStream(channel))) {
+            // leave the channel open for lookups
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                long start = parser.getTokenLocation().getByteOffset();
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a product at byte " + start + " of the catalogue.");
+                }
+
+                String asin = null;
+                boolean sns = false;
+                String vendor = null;
+                long listPriceCents = PriceCents.NONE;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("asin".equals(field)) {
+                        asin = parser.getValueAsString();
+                    } else if ("isSNS".equals(field)) {
+                        sns = parser.getValueAsBoolean();
+                    } else if ("vendor".equals(field)) {
+                        vendor = parser.getValueAsString();
+                    } else if ("listPrice".equals(field) && parser.getCurrentToken().isNumeric()) {
+                        listPriceCents = PriceCents.of(parser.getDecimalValue());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+
+                long length = parser.getCurrentLocation().getByteOffset() - start;
+                if (asin == null) {
+                    throw new IOException("Product at byte " + start + " of the catalogue has no asin.");
+                }
+                if (length > MAX_PRODUCT_LENGTH) {
+                    throw new IOException("Product " + asin + " is longer than " + MAX_PRODUCT_LENGTH + " bytes.");
+                }
+                entries.add(new IndexEntry(asin, start << LENGTH_BITS | length, sns, vendor, listPriceCents));
+            }
+        }
+
+        return entries;
+    }
+
+    private static final class IndexEntry {
+        private final String asin;
+        private final long position;
+        private final boolean sns;
+        private final String vendor;
+        private final long listPriceCents;
+
+        private IndexEntry(String asin, long position, boolean sns, String vendor, long listPriceCents) {
+            this.asin = asin;
+            this.position = position;
+            this.sns = sns;
+            this.vendor = vendor;
+            this.listPriceCents = listPriceCents;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Splits a line-oriented file into byte ranges that each hold only whole lines, so the ranges can be parsed
+ * independently.
+ */
+final class LineRanges {
+
+    private static final int SCAN_LENGTH = 8192;
+
+    private LineRanges() {
+    }
+
+    /**
+     * Splits the file into up to {@code rangeCount} ranges of roughly equal length. Range {@code i} runs from
+     * {@code boundaries[i]} up to, but not including, {@code boundaries[i + 1]}; every boundary but the last
+     * falls just after a line break. Ranges may be empty when lines are longer than a range.
+     *
+     * @param channel    the file to split
+     * @param rangeCount how many ranges to split it into
+     * @return {@code rangeCount + 1} boundaries, starting at 0 and ending at the file length
+     * @throws IOException if the file cannot be read
+     */
+    static long[] split(FileChannel channel, int rangeCount) throws IOException {
+        long fileLength = channel.size();
+        long[] boundaries = new long[rangeCount + 1];
+        boundaries[rangeCount] = fileLength;
+
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_LENGTH);
+        for (int i = 1; i < rangeCount; i++) {
+            long position = Math.max(fileLength * i / rangeCount, boundaries[i - 1]);
+            boundaries[i] = nextLineStart(channel, position, fileLength, buffer);
+        }
+
+        return boundaries;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long fileLength, ByteBuffer buffer)
+        throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+
+        // a position just after a line break is already a line start
+        long scanFrom = position - 1;
+        while (scanFrom < fileLength) {
+            buffer.clear();
+            int read = channel.read(buffer, scanFrom);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return scanFrom + i + 1;
+                }
+            }
+            scanFrom += read;
+        }
+
+        return fileLength;
+    }
+}
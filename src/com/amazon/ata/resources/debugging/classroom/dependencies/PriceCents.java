@@ -0,0 +1,66 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices as a primitive {@code long} number of cents, so sums and other aggregates over many prices need no
+ * {@code BigDecimal} arithmetic. Prices with fractions of a cent are rounded half up to the nearest cent.
+ */
+public final class PriceCents {
+
+    /** Stands in for the price of an unknown or unpriced product. Never a valid price. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final int CENT_SCALE = 2;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100};
+
+    private PriceCents() {
+    }
+
+    /**
+     * Converts a price to cents.
+     *
+     * @param price the price, or null
+     * @return the price in cents, or {@code NONE} if the price is null
+     * @throws ArithmeticException if the price is too large to count in cents in a long
+     */
+    public static long of(BigDecimal price) {
+        if (price == null) {
+            return NONE;
+        }
+
+        return price.setScale(CENT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts a price held as a {@code BigDecimal}'s unscaled value and scale to cents, without creating the
+     * {@code BigDecimal} when the scale is 0 to 2.
+     *
+     * @param unscaledPrice the price's unscaled value
+     * @param scale         the price's scale
+     * @return the price in cents
+     * @throws ArithmeticException if the price is too large to count in cents in a long
+     */
+    public static long of(long unscaledPrice, int scale) {
+        if (scale >= 0 && scale <= CENT_SCALE) {
+            return Math.multiplyExact(unscaledPrice, POWERS_OF_TEN[CENT_SCALE - scale]);
+        }
+
+        return of(BigDecimal.valueOf(unscaledPrice, scale));
+    }
+
+    /**
+     * Converts cents back to a price.
+     *
+     * @param cents the price in cents
+     * @return the price, with a scale of 2, or null if {@code cents} is {@code NONE}
+     */
+    public static BigDecimal toPrice(long cents) {
+        if (cents == NONE) {
+            return null;
+        }
+
+        return BigDecimal.valueOf(cents, CENT_SCALE);
+    }
+}
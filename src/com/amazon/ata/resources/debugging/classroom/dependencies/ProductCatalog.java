@@ -0,0 +1,142 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable snapshot of the product catalogue, keyed by ASIN. Safe to share between threads.
+ */
+public class ProductCatalog implements ProductLookup {
+
+    // a catalogue line is around 120 bytes of JSON
+    private static final int TYPICAL_LINE_LENGTH = 120;
+    private static final long MIN_RANGE_LENGTH = 1 << 20;
+    private static final long MAX_RANGE_LENGTH = 1 << 24;
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final Map<String, Product> productsByAsin;
+    private final ProductEligibilityIndex eligibility;
+    private final ProductPriceIndex prices;
+    private final Map<String, List<String>> asinsByVendor;
+
+    private ProductCatalog(Map<String, Product> productsByAsin) {
+        this.productsByAsin = productsByAsin;
+        this.eligibility = ProductEligibilityIndex.of(productsByAsin.values());
+        this.prices = ProductPriceIndex.of(eligibility, productsByAsin);
+        this.asinsByVendor = productsByAsin.values().stream()
+            .filter(product -> product.getVendor() != null)
+            .collect(Collectors.groupingBy(Product::getVendor,
+                                           Collectors.mapping(Product::getAsin, Collectors.toList())));
+    }
+
+    /**
+     * Reads a catalogue file. The file is split into byte ranges of whole lines, which are parsed in parallel
+     * with a shared {@code ObjectReader}, each into its own map; no per-line Strings are created. The range maps
+     * are then combined in file order.
+     * <p>
+     * If an ASIN appears on more than one line, the last of those lines in the file is kept.
+     *
+     * @param catalogueFile lines of JSON, each representing a Product
+     * @param productReader the reader to parse products with
+     * @param parallelism   how many threads' worth of work to split the file into
+     * @return the loaded catalogue
+     * @throws IOException if the file cannot be read, a line cannot be parsed or a product has no ASIN
+     */
+    public static ProductCatalog load(File catalogueFile, ObjectReader productReader, int parallelism)
+        throws IOException {
+        try (FileChannel channel = FileChannel.open(catalogueFile.toPath(), StandardOpenOption.READ)) {
+            long fileLength = channel.size();
+            long rangeCount = Math.min((long) parallelism * RANGES_PER_THREAD, fileLength / MIN_RANGE_LENGTH);
+            rangeCount = Math.max(rangeCount, (fileLength + MAX_RANGE_LENGTH - 1) / MAX_RANGE_LENGTH);
+            long[] boundaries = LineRanges.split(channel, (int) Math.max(rangeCount, 1));
+
+            List<Map<String, Product>> rangeProducts;
+            try {
+                rangeProducts = IntStream.range(0, boundaries.length - 1).parallel().mapToObj(range -> {
+                    try {
+                        return loadRange(channel, boundaries[range], boundaries[range + 1], productReader);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // ranges are in file order, so a later line's product replaces an earlier one with the same ASIN
+            Map<String, Product> productsByAsin =
+                new HashMap<>(mapCapacity(rangeProducts.stream().mapToLong(Map::size).sum()));
+            for (Map<String, Product> products : rangeProducts) {
+                productsByAsin.putAll(products);
+            }
+
+            return new ProductCatalog(productsByAsin);
+        }
+    }
+
+    @Override
+    public Product getProduct(String asin) {
+        return productsByAsin.get(asin);
+    }
+
+    @Override
+    public Eligibility checkEligibility(String asin) {
+        return eligibility.checkEligibility(asin);
+    }
+
+    @Override
+    public long getListPriceCents(String asin) {
+        return prices.getListPriceCents(asin);
+    }
+
+    @Override
+    public List<String> getAsinsByVendor(String vendor) {
+        return Collections.unmodifiableList(asinsByVendor.getOrDefault(vendor, Collections.emptyList()));
+    }
+
+    @Override
+    public int size() {
+        return productsByAsin.size();
+    }
+
+    private static Map<String, Product> loadRange(FileChannel channel, long start, long end,
+                                                  ObjectReader productReader) throws IOException {
+        Map<String, Product> productsByAsin = new HashMap<>(mapCapacity((end - start) / TYPICAL_LINE_LENGTH));
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+
+        try (MappingIterator<Product> products = productReader.readValues(buffer.array(), 0, buffer.position())) {
+            while (products.hasNextValue()) {
+                long productStart = start + products.getParser().getTokenLocation().getByteOffset();
+                Product product = products.nextValue();
+                if (product.getAsin() == null) {
+                    throw new IOException("Product at byte " + productStart + " of the catalogue has no asin.");
+                }
+                productsByAsin.put(product.getAsin(), product);
+            }
+        }
+
+        return productsByAsin;
+    }
+
+    private static int mapCapacity(long expectedSize) {
+        return (int) Math.min(expectedSize * 4 / 3 + 1, Integer.MAX_VALUE);
+    }
+}
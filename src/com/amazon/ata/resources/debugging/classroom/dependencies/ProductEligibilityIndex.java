@@ -0,0 +1,92 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Answers whether an ASIN exists and is eligible for Subscribe and Save without touching any {@code Product}. ASINs
+ * are held in a sorted array, with each one's SNS flag at the same position in a {@code BitSet}, so the index costs
+ * one reference and one bit per product on top of the ASIN Strings, and a lookup is a binary search that allocates
+ * nothing.
+ */
+public class ProductEligibilityIndex {
+
+    private final String[] sortedAsins;
+    private final BitSet snsFlags;
+
+    /**
+     * Wraps an already-built index.
+     *
+     * @param sortedAsins distinct ASINs in natural order
+     * @param snsFlags    bit {@code i} set if the product with {@code sortedAsins[i]} is SNS eligible
+     */
+    ProductEligibilityIndex(String[] sortedAsins, BitSet snsFlags) {
+        this.sortedAsins = sortedAsins;
+        this.snsFlags = snsFlags;
+    }
+
+    /**
+     * Builds the index for a set of products with distinct ASINs.
+     *
+     * @param products the products to index
+     * @return the index
+     */
+    public static ProductEligibilityIndex of(Collection<Product> products) {
+        Product[] sortedProducts = products.toArray(new Product[0]);
+        Arrays.sort(sortedProducts, (first, second) -> first.getAsin().compareTo(second.getAsin()));
+
+        String[] sortedAsins = new String[sortedProducts.length];
+        BitSet snsFlags = new BitSet(sortedProducts.length);
+        for (int i = 0; i < sortedProducts.length; i++) {
+            sortedAsins[i] = sortedProducts[i].getAsin();
+            snsFlags.set(i, sortedProducts[i].isSNS());
+        }
+
+        return new ProductEligibilityIndex(sortedAsins, snsFlags);
+    }
+
+    /**
+     * Returns whether the product with an ASIN can be subscribed to.
+     *
+     * @param asin the ASIN to check
+     * @return {@code UNKNOWN_ASIN}, {@code NOT_SNS} or {@code ELIGIBLE}
+     */
+    public Eligibility checkEligibility(String asin) {
+        int index = indexOf(asin);
+        if (index < 0) {
+            return Eligibility.UNKNOWN_ASIN;
+        }
+
+        return snsFlags.get(index) ? Eligibility.ELIGIBLE : Eligibility.NOT_SNS;
+    }
+
+    /**
+     * Returns the number of ASINs in the index.
+     *
+     * @return the number of ASINs
+     */
+    public int size() {
+        return sortedAsins.length;
+    }
+
+    /**
+     * Returns the ASIN at a position in the index.
+     *
+     * @param index the position, from 0 to {@code size() - 1}
+     * @return the ASIN
+     */
+    String asinAt(int index) {
+        return sortedAsins[index];
+    }
+
+    /**
+     * Returns the position of an ASIN in the index.
+     *
+     * @param asin the ASIN to find
+     * @return its position, or a negative number if it is not in the index
+     */
+    int indexOf(String asin) {
+        return Arrays.binarySearch(sortedAsins, asin);
+    }
+}
@@ -0,0 +1,63 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A structure that can look up products by ASIN. Implementations are safe for concurrent lookups once built.
+ * <p>
+ * Implementations that hold a file open release it on {@code close()}; no lookups may be made after that.
+ */
+public interface ProductLookup extends Closeable {
+
+    /**
+     * Returns the product for an ASIN.
+     *
+     * @param asin the ASIN to look up
+     * @return the product, or null if the ASIN is not in the catalogue
+     */
+    Product getProduct(String asin);
+
+    /**
+     * Returns whether the product with an ASIN can be subscribed to, without creating or reading any
+     * {@code Product}.
+     *
+     * @param asin the ASIN to check
+     * @return {@code UNKNOWN_ASIN}, {@code NOT_SNS} or {@code ELIGIBLE}
+     */
+    Eligibility checkEligibility(String asin);
+
+    /**
+     * Returns the list price of a product as a primitive number of cents, without creating any {@code Product} or
+     * {@code BigDecimal}.
+     *
+     * @param asin the ASIN of the product
+     * @return the price in cents, or {@code PriceCents.NONE} if the product is unknown or has no price
+     */
+    long getListPriceCents(String asin);
+
+    /**
+     * Returns the ASINs of every product offered by a vendor, from an index built when the catalogue is loaded.
+     *
+     * @param vendor the vendor to look up
+     * @return the vendor's ASINs, or an empty list if the vendor has no products in the catalogue
+     */
+    List<String> getAsinsByVendor(String vendor);
+
+    /**
+     * Returns the number of products in the catalogue.
+     *
+     * @return the number of products
+     */
+    int size();
+
+    /**
+     * Releases anything the structure holds open. Does nothing unless overridden.
+     *
+     * @throws IOException if a held resource cannot be released
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,53 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import java.util.Map;
+
+/**
+ * Each product's list price in cents, in a {@code long} array parallel to the ASINs of a
+ * {@code ProductEligibilityIndex}. Looking up a price is a binary search and an array read; nothing is boxed and no
+ * {@code BigDecimal} is touched.
+ */
+public class ProductPriceIndex {
+
+    private final ProductEligibilityIndex asins;
+    private final long[] listPriceCents;
+
+    /**
+     * Wraps an already-built index.
+     *
+     * @param asins          the ASINs the prices are for
+     * @param listPriceCents {@code listPriceCents[i]} is the price of the ASIN at position {@code i} of
+     *                       {@code asins}, or {@code PriceCents.NONE}
+     */
+    ProductPriceIndex(ProductEligibilityIndex asins, long[] listPriceCents) {
+        this.asins = asins;
+        this.listPriceCents = listPriceCents;
+    }
+
+    /**
+     * Builds the price index for the products of an eligibility index.
+     *
+     * @param asins          the ASINs to index prices for
+     * @param productsByAsin the product for each of those ASINs
+     * @return the index
+     */
+    public static ProductPriceIndex of(ProductEligibilityIndex asins, Map<String, Product> productsByAsin) {
+        long[] listPriceCents = new long[asins.size()];
+        for (int i = 0; i < listPriceCents.length; i++) {
+            listPriceCents[i] = PriceCents.of(productsByAsin.get(asins.asinAt(i)).getListPrice());
+        }
+
+        return new ProductPriceIndex(asins, listPriceCents);
+    }
+
+    /**
+     * Returns the list price of a product in cents.
+     *
+     * @param asin the ASIN of the product
+     * @return the price in cents, or {@code PriceCents.NONE} if the product is unknown or has no price
+     */
+    public long getListPriceCents(String asin) {
+        int index = asins.indexOf(asin);
+        return index < 0 ? PriceCents.NONE : listPriceCents[index];
+    }
+}
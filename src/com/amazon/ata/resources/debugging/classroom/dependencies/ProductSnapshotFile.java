@@ -0,0 +1,355 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.primitives.ImmutableIntArray;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A product catalogue compiled into a binary snapshot and memory-mapped. Opening a snapshot only maps it, so startup
+ * takes the same time whatever the size of the catalogue, and lookups read straight from the mapped file; the
+ * products live in the OS page cache rather than the heap.
+ * <p>
+ * Snapshots are produced from a catalogue file by {@code compile()}, either in code or from the command line:
+ * <pre>
+ *     java ...ProductSnapshotFile catalog.json catalog.snapshot
+ * </pre>
+ * File layout, all integers big-endian:
+ * <ul>
+ *     <li>a 16 byte header: magic number, product count, hash slot count, string table length</li>
+ *     <li>the hash index: one int per slot, holding a product's record number plus one, or 0 if empty. A product
+ *     is in the first free slot at or after {@code mix(asin.hashCode())}, wrapping around.</li>
+ *     <li>the product records, 32 bytes each: string table offsets of the asin, title and vendor (-1 for null), a
+ *     flags int (SNS, has price), then the list price as an unscaled long and an int scale</li>
+ *     <li>the string table: each distinct string as an int length followed by its UTF-8 bytes</li>
+ * </ul>
+ * A snapshot is mapped as a single buffer, so is limited to 2GB. Strings are deduplicated, so products of the same
+ * vendor share a vendor string offset; the vendor index is built from those offsets on the first vendor lookup
+ * rather than when the snapshot is opened, so opening stays instant.
+ */
+public class ProductSnapshotFile implements ProductLookup {
+
+    private static final int MAGIC = 0x50534E50;
+    private static final int HEADER_LENGTH = 16;
+    private static final int SLOT_LENGTH = Integer.BYTES;
+    private static final int RECORD_LENGTH = 32;
+    private static final int NO_STRING = -1;
+    private static final int SNS_FLAG = 1;
+    private static final int PRICE_FLAG = 2;
+
+    private static final int ASIN_FIELD = 0;
+    private static final int TITLE_FIELD = 4;
+    private static final int VENDOR_FIELD = 8;
+    private static final int FLAGS_FIELD = 12;
+    private static final int UNSCALED_PRICE_FIELD = 16;
+    private static final int PRICE_SCALE_FIELD = 24;
+
+    private final MappedByteBuffer buffer;
+    private final int productCount;
+    private final int slotMask;
+    private final int recordsStart;
+    private final int stringsStart;
+    private final Supplier<Map<String, ImmutableIntArray>> recordNumbersByVendor =
+        Suppliers.memoize(this::indexVendors);
+
+    private ProductSnapshotFile(MappedByteBuffer buffer, int productCount, int slotCount) {
+        this.buffer = buffer;
+        this.productCount = productCount;
+        this.slotMask = slotCount - 1;
+        this.recordsStart = HEADER_LENGTH + slotCount * SLOT_LENGTH;
+        this.stringsStart = recordsStart + productCount * RECORD_LENGTH;
+    }
+
+    /**
+     * Compiles a catalogue file into a snapshot. If an ASIN appears more than once, the last product with it is
+     * kept.
+     *
+     * @param catalogueFile JSON products, one per line
+     * @param snapshotFile  the file to write
+     * @throws IOException if either file cannot be accessed, a product cannot be parsed or has no ASIN, a price
+     *                     does not fit in a long, or the snapshot would be larger than 2GB
+     */
+    public static void compile(File catalogueFile, File snapshotFile) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        Map<String, Product> productsByAsin = new LinkedHashMap<>();
+        try (MappingIterator<Product> products = mapper.readerFor(Product.class).readValues(catalogueFile)) {
+            while (products.hasNextValue()) {
+                Product product = products.nextValue();
+                if (product.getAsin() == null) {
+                    throw new IOException("Product " + product.getTitle() + " has no asin.");
+                }
+                productsByAsin.put(product.getAsin(), product);
+            }
+        }
+
+        int productCount = productsByAsin.size();
+        int slotCount = Integer.highestOneBit(Math.max(productCount, 1) * 2 - 1) << 1;
+        int[] slots = new int[slotCount];
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream records = new ByteArrayOutputStream(productCount * RECORD_LENGTH);
+        DataOutputStream recordOut = new DataOutputStream(records);
+
+        int recordNumber = 0;
+        for (Product product : productsByAsin.values()) {
+            int slot = mix(product.getAsin().hashCode()) & (slotCount - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = ++recordNumber;
+
+            BigDecimal listPrice = product.getListPrice();
+            if (listPrice != null && listPrice.unscaledValue().bitLength() >= Long.SIZE) {
+                throw new IOException("List price of " + product.getAsin() + " is too precise: " + listPrice);
+            }
+            recordOut.writeInt(strings.add(product.getAsin()));
+            recordOut.writeInt(strings.add(product.getTitle()));
+            recordOut.writeInt(strings.add(product.getVendor()));
+            recordOut.writeInt((product.isSNS() ? SNS_FLAG : 0) | (listPrice != null ? PRICE_FLAG : 0));
+            recordOut.writeLong(listPrice != null ? listPrice.unscaledValue().longValue() : 0);
+            recordOut.writeInt(listPrice != null ? listPrice.scale() : 0);
+            recordOut.writeInt(0);
+        }
+
+        long fileLength = HEADER_LENGTH + (long) slotCount * SLOT_LENGTH + records.size() + strings.length();
+        if (fileLength > Integer.MAX_VALUE) {
+            throw new IOException("Catalogue is too large for a snapshot: " + catalogueFile);
+        }
+
+        try (DataOutputStream out =
+                 new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshotFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(productCount);
+            out.writeInt(slotCount);
+            out.writeInt(strings.length());
+            for (int slot : slots) {
+                out.writeInt(slot);
+            }
+            records.writeTo(out);
+            strings.writeTo(out);
+        }
+    }
+
+    /**
+     * Maps a snapshot written by {@code compile()}.
+     *
+     * @param snapshotFile the file to map
+     * @return the mapped snapshot, ready for lookups
+     * @throws IOException if the file cannot be read or is not a product snapshot
+     */
+    public static ProductSnapshotFile open(File snapshotFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            long fileLength = channel.size();
+            if (fileLength < HEADER_LENGTH || fileLength > Integer.MAX_VALUE) {
+                throw new IOException("Not a product snapshot file: " + snapshotFile);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+            int magic = buffer.getInt(0);
+            int productCount = buffer.getInt(4);
+            int slotCount = buffer.getInt(8);
+            int stringsLength = buffer.getInt(12);
+            if (magic != MAGIC || productCount < 0 || slotCount <= productCount || Integer.bitCount(slotCount) != 1 ||
+                stringsLength < 0 || fileLength != HEADER_LENGTH + (long) slotCount * SLOT_LENGTH +
+                    (long) productCount * RECORD_LENGTH + stringsLength) {
+                throw new IOException("Not a product snapshot file: " + snapshotFile);
+            }
+
+            return new ProductSnapshotFile(buffer, productCount, slotCount);
+        }
+    }
+
+    /**
+     * Compiles a catalogue snapshot from the command line.
+     *
+     * @param args the catalogue file to read, then the snapshot file to write
+     * @throws IOException if either file cannot be accessed
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ProductSnapshotFile <catalogue file> <output file>");
+        }
+
+        compile(new File(args[0]), new File(args[1]));
+    }
+
+    @Override
+    public Product getProduct(String asin) {
+        int record = findRecord(asin);
+        if (record < 0) {
+            return null;
+        }
+
+        int flags = buffer.getInt(record + FLAGS_FIELD);
+        BigDecimal listPrice = (flags & PRICE_FLAG) == 0 ? null :
+            new BigDecimal(BigInteger.valueOf(buffer.getLong(record + UNSCALED_PRICE_FIELD)),
+                           buffer.getInt(record + PRICE_SCALE_FIELD));
+        return new Product(readString(buffer.getInt(record + TITLE_FIELD)), asin,
+                           readString(buffer.getInt(record + VENDOR_FIELD)), (flags & SNS_FLAG) != 0, listPrice);
+    }
+
+    @Override
+    public Eligibility checkEligibility(String asin) {
+        int record = findRecord(asin);
+        if (record < 0) {
+            return Eligibility.UNKNOWN_ASIN;
+        }
+
+        return (buffer.getInt(record + FLAGS_FIELD) & SNS_FLAG) != 0 ? Eligibility.ELIGIBLE : Eligibility.NOT_SNS;
+    }
+
+    @Override
+    public long getListPriceCents(String asin) {
+        int record = findRecord(asin);
+        if (record < 0 || (buffer.getInt(record + FLAGS_FIELD) & PRICE_FLAG) == 0) {
+            return PriceCents.NONE;
+        }
+
+        return PriceCents.of(buffer.getLong(record + UNSCALED_PRICE_FIELD), buffer.getInt(record + PRICE_SCALE_FIELD));
+    }
+
+    @Override
+    public List<String> getAsinsByVendor(String vendor) {
+        ImmutableIntArray recordNumbers = recordNumbersByVendor.get().get(vendor);
+        if (recordNumbers == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> asins = new ArrayList<>(recordNumbers.length());
+        recordNumbers.forEach(recordNumber ->
+            asins.add(readString(buffer.getInt(recordsStart + recordNumber * RECORD_LENGTH + ASIN_FIELD))));
+        return asins;
+    }
+
+    @Override
+    public int size() {
+        return productCount;
+    }
+
+    /**
+     * Returns the position of the record for an ASIN, or -1 if it is not in the snapshot.
+     */
+    private int findRecord(String asin) {
+        int slot = mix(asin.hashCode()) & slotMask;
+        int recordNumber;
+        while ((recordNumber = buffer.getInt(HEADER_LENGTH + slot * SLOT_LENGTH)) != 0) {
+            int record = recordsStart + (recordNumber - 1) * RECORD_LENGTH;
+            if (stringEquals(buffer.getInt(record + ASIN_FIELD), asin)) {
+                return record;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Compares a string in the table with {@code value} without decoding it, when {@code value} is ASCII.
+     */
+    private boolean stringEquals(int stringOffset, String value) {
+        int position = stringsStart + stringOffset;
+        int length = buffer.getInt(position);
+        position += Integer.BYTES;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return readString(stringOffset).equals(value);
+            }
+            if (i >= length || buffer.get(position + i) != c) {
+                return false;
+            }
+        }
+
+        return length == value.length();
+    }
+
+    private Map<String, ImmutableIntArray> indexVendors() {
+        Map<Integer, ImmutableIntArray.Builder> recordNumbersByVendorOffset = new HashMap<>();
+        for (int recordNumber = 0; recordNumber < productCount; recordNumber++) {
+            int vendorOffset = buffer.getInt(recordsStart + recordNumber * RECORD_LENGTH + VENDOR_FIELD);
+            if (vendorOffset != NO_STRING) {
+                recordNumbersByVendorOffset.computeIfAbsent(vendorOffset, offset -> ImmutableIntArray.builder())
+                                           .add(recordNumber);
+            }
+        }
+
+        Map<String, ImmutableIntArray> index = new HashMap<>();
+        recordNumbersByVendorOffset.forEach((vendorOffset, recordNumbers) ->
+            index.put(readString(vendorOffset), recordNumbers.build()));
+        return index;
+    }
+
+    private String readString(int stringOffset) {
+        if (stringOffset == NO_STRING) {
+            return null;
+        }
+
+        int position = stringsStart + stringOffset;
+        byte[] bytes = new byte[buffer.getInt(position)];
+        position += Integer.BYTES;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int mix(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x45D9F3B;
+    }
+
+    /**
+     * Builds the string table, writing each distinct string once.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private int add(String value) throws IOException {
+            if (value == null) {
+                return NO_STRING;
+            }
+
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                offset = bytes.size();
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+                offsets.put(value, offset);
+            }
+
+            return offset;
+        }
+
+        private int length() {
+            return bytes.size();
+        }
+
+        private void writeTo(DataOutputStream target) throws IOException {
+            bytes.writeTo(target);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+/**
+ * A {@code CustomerIdSet} split into independently locked shards, so several threads can load IDs into it at
+ * once.
+ * <p>
+ * Adds are safe from any number of threads. Lookups take no locks, so they are only safe once every add has
+ * finished and the set has been handed to the reading threads, for example by joining the loading tasks.
+ */
+public class ShardedCustomerIdSet implements CustomerIdLookup {
+
+    private final CustomerIdSet[] shards;
+    private final int shardShift;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param expectedSize how many IDs the set is expected to hold in total
+     * @param shardCount   how many shards to split the set into; rounded up to a power of two
+     */
+    public ShardedCustomerIdSet(int expectedSize, int shardCount) {
+        int shardBits = Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(shardCount, 1) - 1);
+        shards = new CustomerIdSet[1 << shardBits];
+        shardShift = Integer.SIZE - shardBits;
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new CustomerIdSet(expectedSize / shards.length);
+        }
+    }
+
+    /**
+     * Adds a customer ID to the set. Safe to call from several threads at once.
+     *
+     * @param customerId the ID to add
+     * @return true if the ID was added, false if it was already present
+     */
+    public boolean add(String customerId) {
+        return add((CharSequence) customerId);
+    }
+
+    boolean add(CharSequence customerId) {
+        CustomerIdSet shard = shardFor(customerId);
+        synchronized (shard) {
+            return shard.add(customerId);
+        }
+    }
+
+    @Override
+    public boolean contains(String customerId) {
+        return shardFor(customerId).contains(customerId);
+    }
+
+    /**
+     * Returns the number of IDs in the set. Only accurate once loading has finished.
+     *
+     * @return the number of IDs
+     */
+    public int size() {
+        int size = 0;
+        for (CustomerIdSet shard : shards) {
+            size += shard.size();
+        }
+
+        return size;
+    }
+
+    private CustomerIdSet shardFor(CharSequence customerId) {
+        // Java masks shift distances to 5 bits, so shifting by 32 would not leave 0 for a single shard
+        return shards.length == 1 ? shards[0] : shards[CustomerIdSet.hashOf(customerId) >>> shardShift];
+    }
+}
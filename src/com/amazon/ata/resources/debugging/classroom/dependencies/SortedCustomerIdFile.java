@@ -0,0 +1,263 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.google.common.primitives.UnsignedBytes;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.LineIterator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Customer IDs stored sorted in fixed-width records in a memory-mapped file, looked up by binary search. The IDs
+ * live in the OS page cache rather than the heap.
+ * <p>
+ * Files are produced from a customer ID text file by {@code compile()}, either in code or from the command line:
+ * <pre>
+ *     java ...SortedCustomerIdFile customers.txt customers.ids
+ * </pre>
+ * File layout: a 16 byte header (magic number, record width, record count), then each distinct ID as UTF-8,
+ * padded with zero bytes to the record width, in unsigned byte order.
+ * <p>
+ * The mapping stays in place until {@code close()}, which unmaps it straight away rather than when the buffers are
+ * garbage collected. Nothing may be looking up IDs when it is called; {@code FileReloader.read()} ensures that.
+ */
+public class SortedCustomerIdFile implements CustomerIdLookup {
+
+    private static final int MAGIC = 0x43494453;
+    private static final int HEADER_LENGTH = 16;
+
+    private final int recordWidth;
+    private final long recordCount;
+    private final int recordsPerSegment;
+    // a single mapping is limited to 2GB, so large files are mapped in segments of whole records
+    private final MappedByteBuffer[] segments;
+    private volatile boolean closed;
+
+    private SortedCustomerIdFile(int recordWidth, long recordCount, MappedByteBuffer[] segments) {
+        this.recordWidth = recordWidth;
+        this.recordCount = recordCount;
+        this.recordsPerSegment = Integer.MAX_VALUE / recordWidth;
+        this.segments = segments;
+    }
+
+    /**
+     * Compiles a text file with one customer ID per line into a sorted customer ID file. Blank lines and duplicate
+     * IDs are dropped.
+     *
+     * @param customerIdFile the text file to read
+     * @param sortedIdFile   the file to write
+     * @throws IOException if either file cannot be accessed
+     */
+    public static void compile(File customerIdFile, File sortedIdFile) throws IOException {
+        List<byte[]> ids = new ArrayList<>();
+        try (LineIterator lines = FileUtils.lineIterator(customerIdFile, Charset.defaultCharset().name())) {
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (!line.isEmpty()) {
+                    ids.add(line.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        Comparator<byte[]> order = UnsignedBytes.lexicographicalComparator();
+        ids.sort(order);
+
+        List<byte[]> distinctIds = new ArrayList<>(ids.size());
+        int recordWidth = 1;
+        for (byte[] id : ids) {
+            if (distinctIds.isEmpty() || order.compare(distinctIds.get(distinctIds.size() - 1), id) != 0) {
+                distinctIds.add(id);
+                recordWidth = Math.max(recordWidth, id.length);
+            }
+        }
+
+        try (DataOutputStream out =
+                 new DataOutputStream(new BufferedOutputStream(new FileOutputStream(sortedIdFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(recordWidth);
+            out.writeLong(distinctIds.size());
+
+            byte[] padding = new byte[recordWidth];
+            for (byte[] id : distinctIds) {
+                out.write(id);
+                out.write(padding, 0, recordWidth - id.length);
+            }
+        }
+    }
+
+    /**
+     * Maps a file written by {@code compile()}.
+     *
+     * @param sortedIdFile the file to map
+     * @return the mapped file, ready for lookups
+     * @throws IOException if the file cannot be read or is not a sorted customer ID file
+     */
+    public static SortedCustomerIdFile open(File sortedIdFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(sortedIdFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_LENGTH) {
+                throw new IOException("Not a sorted customer ID file: " + sortedIdFile);
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            int magic = header.getInt();
+            int recordWidth = header.getInt();
+            long recordCount = header.getLong();
+            unmap(header);
+            if (magic != MAGIC || recordWidth <= 0 || recordCount < 0 ||
+                channel.size() != HEADER_LENGTH + recordCount * recordWidth) {
+                throw new IOException("Not a sorted customer ID file: " + sortedIdFile);
+            }
+
+            long recordsPerSegment = Integer.MAX_VALUE / recordWidth;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((recordCount + recordsPerSegment - 1) /
+                                                                      recordsPerSegment)];
+            for (int i = 0; i < segments.length; i++) {
+                long firstRecord = i * recordsPerSegment;
+                long records = Math.min(recordsPerSegment, recordCount - firstRecord);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                          HEADER_LENGTH + firstRecord * recordWidth,
+                                          records * recordWidth);
+            }
+
+            return new SortedCustomerIdFile(recordWidth, recordCount, segments);
+        }
+    }
+
+    /**
+     * Compiles a customer ID file from the command line.
+     *
+     * @param args the customer ID text file to read, then the sorted customer ID file to write
+     * @throws IOException if either file cannot be accessed
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: SortedCustomerIdFile <customer ID file> <output file>");
+        }
+
+        compile(new File(args[0]), new File(args[1]));
+    }
+
+    @Override
+    public boolean contains(String customerId) {
+        return contains(customerId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the number of distinct customer IDs in the file.
+     *
+     * @return the number of IDs
+     */
+    public long size() {
+        return recordCount;
+    }
+
+    /**
+     * Unmaps the file. Lookups made afterwards throw {@code IllegalStateException}.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        for (MappedByteBuffer segment : segments) {
+            unmap(segment);
+        }
+    }
+
+    boolean isOpen() {
+        return !closed;
+    }
+
+    boolean contains(byte[] customerId) {
+        checkOpen();
+        if (customerId.length == 0 || customerId.length > recordWidth) {
+            return false;
+        }
+
+        long low = 0;
+        long high = recordCount - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            int comparison = compareRecord(middle, customerId);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Passes each ID in the file, in order and without padding, to {@code action}.
+     */
+    void forEachId(Consumer<byte[]> action) {
+        checkOpen();
+        byte[] record = new byte[recordWidth];
+        for (long i = 0; i < recordCount; i++) {
+            MappedByteBuffer segment = segments[(int) (i / recordsPerSegment)];
+            int offset = (int) (i % recordsPerSegment) * recordWidth;
+            int length = 0;
+            while (length < recordWidth && segment.get(offset + length) != 0) {
+                record[length] = segment.get(offset + length);
+                length++;
+            }
+            action.accept(Arrays.copyOf(record, length));
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Sorted customer ID file has been closed.");
+        }
+    }
+
+    // the JDK has no public way to unmap a buffer; without this the mapping lives until the buffer is collected
+    private static void unmap(ByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // not available on this JVM, so leave the mapping to be released with the buffer
+        }
+    }
+
+    private int compareRecord(long index, byte[] customerId) {
+        MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+        int offset = (int) (index % recordsPerSegment) * recordWidth;
+
+        for (int i = 0; i < recordWidth; i++) {
+            int recordByte = segment.get(offset + i) & 0xFF;
+            int idByte = i < customerId.length ? customerId[i] & 0xFF : 0;
+            if (recordByte != idByte) {
+                return recordByte - idByte;
+            }
+        }
+
+        return 0;
+    }
+}
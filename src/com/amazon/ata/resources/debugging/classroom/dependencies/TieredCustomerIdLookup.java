@@ -0,0 +1,47 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Customer ID lookup that keeps only a Bloom filter in heap. IDs the filter rules out are rejected immediately;
+ * the rest are confirmed against a memory-mapped {@code SortedCustomerIdFile}. At a 1% false positive rate the
+ * filter costs about 1.2 bytes per customer.
+ */
+public class TieredCustomerIdLookup implements CustomerIdLookup {
+
+    private final BloomFilter<byte[]> filter;
+    private final SortedCustomerIdFile sortedIds;
+
+    /**
+     * Builds the Bloom filter from every ID in the sorted file.
+     *
+     * @param sortedIds         the file to confirm possible matches against
+     * @param falsePositiveRate the fraction of unknown IDs the filter may let through to the file
+     */
+    public TieredCustomerIdLookup(SortedCustomerIdFile sortedIds, double falsePositiveRate) {
+        this.sortedIds = sortedIds;
+        this.filter = BloomFilter.create(Funnels.byteArrayFunnel(), Math.max(sortedIds.size(), 1), falsePositiveRate);
+        sortedIds.forEachId(filter::put);
+    }
+
+    @Override
+    public boolean contains(String customerId) {
+        byte[] id = customerId.getBytes(StandardCharsets.UTF_8);
+        if (!filter.mightContain(id)) {
+            return false;
+        }
+
+        return sortedIds.contains(id);
+    }
+
+    /**
+     * Unmaps the sorted file.
+     */
+    @Override
+    public void close() {
+        sortedIds.close();
+    }
+}
@@ -2,26 +2,108 @@ package com.amazon.ata.unittesting.subscribeandsave;
 
 import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonIdentityService;
 import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonProductService;
+import com.amazon.ata.unittesting.subscribeandsave.dao.IdDictionary;
 import com.amazon.ata.unittesting.subscribeandsave.dao.SubscriptionDAO;
 import com.amazon.ata.unittesting.subscribeandsave.dao.SubscriptionFileStorage;
+import com.amazon.ata.unittesting.subscribeandsave.metrics.SubscriptionMetrics;
+import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import org.apache.commons.lang3.StringUtils;
 
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Provides inversion of control for the SNS MLP by instantiating all of the
  * dependencies needed by the SubscriptionDebugUtil and its dependency classes.
+ * <p>
+ * Each component is built once, on first use or by {@code start()}, and the same instance is returned to every
+ * caller after that.
+ * <p>
+ * The customer ID and ASIN dictionaries are shared by every component and live as long as the application. They
+ * never evict, so they retain every customer ID and ASIN encoded since start-up, including those of subscriptions
+ * since removed from the file and of analytics tables that have been discarded. Memory grows with the number of
+ * distinct IDs seen rather than the number currently stored.
  */
 public class App {
     public static final String DATA_FILE_ROOT_PATH =
         Paths.get("resources", "unittesting", "classroom", "subscribeandsave").toString();
 
+    private static final int STARTUP_THREADS = 2;
+    private static final int WARM_UP_LOOKUPS = 10_000;
+
+    private static final IdDictionary CUSTOMER_ID_DICTIONARY = new IdDictionary();
+    private static final IdDictionary ASIN_DICTIONARY = new IdDictionary();
+    private static final Supplier<AmazonProductService> PRODUCT_SERVICE = Suppliers.memoize(
+        () -> new AmazonProductService(Paths.get(DATA_FILE_ROOT_PATH, "catalog.json").toFile()));
+    private static final Supplier<AmazonIdentityService> IDENTITY_SERVICE = Suppliers.memoize(
+        () -> new AmazonIdentityService(Paths.get(DATA_FILE_ROOT_PATH, "customers.txt").toFile()));
+    private static final Supplier<SubscriptionFileStorage> SUBSCRIPTION_FILE_STORAGE = Suppliers.memoize(
+        () -> new SubscriptionFileStorage(Paths.get(DATA_FILE_ROOT_PATH, "subscriptions.csv").toFile(),
+                                          SubscriptionMetrics.getDefault(), CUSTOMER_ID_DICTIONARY,
+                                          ASIN_DICTIONARY));
+    private static final Supplier<SubscriptionDAO> SUBSCRIPTION_DAO = Suppliers.memoize(
+        () -> new SubscriptionDAO(getSubscriptionFileStorage()));
+
+    private static volatile boolean ready;
+
+    /**
+     * Builds every component up front. The product and identity services each load their file when built, and
+     * neither depends on the other, so they are built in parallel.
+     * <p>
+     * With {@code warmUp}, the subscription index is then loaded, and the lookups made for every subscribe
+     * request are run against the stored subscriptions, so that the first real request neither loads files nor
+     * runs unoptimized code.
+     * <p>
+     * Calling this more than once, or after components have been built on first use, only builds what is
+     * missing.
+     *
+     * @param warmUp Whether to preload indexes and exercise lookups before returning
+     */
+    public static void start(boolean warmUp) {
+        ExecutorService executor = Executors.newFixedThreadPool(STARTUP_THREADS);
+        try {
+            CompletableFuture.allOf(CompletableFuture.runAsync(App::getAmazonProductService, executor),
+                                    CompletableFuture.runAsync(App::getAmazonIdentityService, executor))
+                             .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+        getSubscriptionDAO();
+
+        if (warmUp) {
+            warmUp();
+        }
+        ready = true;
+    }
+
+    /**
+     * Returns whether {@code start()} has finished.
+     *
+     * @return true once every component is built, and warmed up if requested
+     */
+    public static boolean isReady() {
+        return ready;
+    }
+
     /**
      * Returns a product service.
      *
      * @return Product service usable for fetching products by ASIN
      */
     public static AmazonProductService getAmazonProductService() {
-        return new AmazonProductService(Paths.get(DATA_FILE_ROOT_PATH, "catalog.json").toFile());
+        return PRODUCT_SERVICE.get();
     }
 
     /**
@@ -30,7 +112,7 @@ public class App {
      * @return Identity service usable for fetching customers by ID
      */
     public static AmazonIdentityService getAmazonIdentityService() {
-        return new AmazonIdentityService(Paths.get(DATA_FILE_ROOT_PATH, "customers.txt").toFile());
+        return IDENTITY_SERVICE.get();
     }
 
     /**
@@ -39,15 +121,54 @@ public class App {
      * @return A subscription DAO for reading/writing subscriptions
      */
     public static SubscriptionDAO getSubscriptionDAO() {
-        return new SubscriptionDAO(getSubscriptionFileStorage());
+        return SUBSCRIPTION_DAO.get();
     }
 
     /**
-     * Returns a subscription file storage manager.
+     * Returns a subscription file storage manager. Anything that rewrites the subscriptions file directly should
+     * call {@code invalidate()} on it afterwards.
      *
      * @return A subscription file data store
      */
     public static SubscriptionFileStorage getSubscriptionFileStorage() {
-        return new SubscriptionFileStorage(Paths.get(DATA_FILE_ROOT_PATH, "subscriptions.csv").toFile());
+        return SUBSCRIPTION_FILE_STORAGE.get();
+    }
+
+    /**
+     * Returns the dictionary every component shares for customer IDs.
+     *
+     * @return The customer ID dictionary
+     */
+    public static IdDictionary getCustomerIdDictionary() {
+        return CUSTOMER_ID_DICTIONARY;
+    }
+
+    /**
+     * Returns the dictionary every component shares for ASINs.
+     *
+     * @return The ASIN dictionary
+     */
+    public static IdDictionary getAsinDictionary() {
+        return ASIN_DICTIONARY;
+    }
+
+    private static void warmUp() {
+        AmazonProductService productService = getAmazonProductService();
+        AmazonIdentityService identityService = getAmazonIdentityService();
+        SubscriptionFileStorage storage = getSubscriptionFileStorage();
+        storage.preload();
+
+        List<Subscription> subscriptions = storage.getAllSubscriptions();
+        for (int i = 0; i < WARM_UP_LOOKUPS && !subscriptions.isEmpty(); i++) {
+            Subscription subscription = subscriptions.get(i % subscriptions.size());
+            if (StringUtils.isNotBlank(subscription.getAsin())) {
+                productService.checkEligibility(subscription.getAsin());
+                productService.getListPriceCents(subscription.getAsin());
+            }
+            if (StringUtils.isNotBlank(subscription.getCustomerId())) {
+                identityService.validateCustomer(subscription.getCustomerId());
+                storage.getSubscriptionsForCustomer(subscription.getCustomerId());
+            }
+        }
     }
 }
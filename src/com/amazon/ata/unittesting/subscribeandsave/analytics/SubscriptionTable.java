@@ -0,0 +1,362 @@
+package com.amazon.ata.unittesting.subscribeandsave.analytics;
+
+import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonProductService;
+import com.amazon.ata.resources.debugging.classroom.dependencies.PriceCents;
+import com.amazon.ata.resources.debugging.classroom.dependencies.Product;
+import com.amazon.ata.unittesting.subscribeandsave.dao.IdDictionary;
+import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable, columnar copy of a set of subscriptions for analytical scans. Each field is held in its own
+ * primitive array, indexed by row:
+ * <ul>
+ *     <li>customer IDs and ASINs as {@code IdDictionary} codes in {@code int} arrays, with each distinct value
+ *     held once. Tables built with the same dictionaries as a {@code SubscriptionFileStorage} share its codes.</li>
+ *     <li>frequencies in a {@code byte} array</li>
+ *     <li>subscription IDs as the two {@code long} halves of their UUID. IDs that are not canonical UUID strings
+ *     are kept as Strings on the side.</li>
+ * </ul>
+ * Aggregations are tight loops over one or two columns, split into row ranges that run in parallel on a fork-join
+ * pool; each range counts into its own partial result, and the partial results are merged once per range.
+ */
+public class SubscriptionTable {
+
+    private static final int MIN_ROWS_PER_TASK = 1 << 16;
+    private static final int TASKS_PER_THREAD = 4;
+    private static final int MONTHS_PER_YEAR = 12;
+
+    private final ForkJoinPool pool;
+    private final int rowCount;
+    private final IdDictionary customerIds;
+    private final IdDictionary asins;
+    // one more than the largest customer and ASIN code in the table
+    private final int customerCodeCount;
+    private final int asinCodeCount;
+    private final int[] customerCodes;
+    private final int[] asinCodes;
+    private final byte[] frequencies;
+    private final long[] idMostSignificantBits;
+    private final long[] idLeastSignificantBits;
+    // row -> subscription ID, for rows whose ID is not a canonical UUID string
+    private final Map<Integer, String> otherIds;
+
+    private SubscriptionTable(Collection<Subscription> subscriptions, IdDictionary customerIds, IdDictionary asins,
+                              ForkJoinPool pool) {
+        this.pool = pool;
+        this.rowCount = subscriptions.size();
+        this.customerIds = customerIds;
+        this.asins = asins;
+        this.customerCodes = new int[rowCount];
+        this.asinCodes = new int[rowCount];
+        this.frequencies = new byte[rowCount];
+        this.idMostSignificantBits = new long[rowCount];
+        this.idLeastSignificantBits = new long[rowCount];
+        this.otherIds = new HashMap<>();
+
+        int row = 0;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.getFrequency() < 0 || subscription.getFrequency() > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Frequency is out of range for a subscription table: " +
+                                                   subscription);
+            }
+
+            customerCodes[row] = customerIds.encode(subscription.getCustomerId());
+            asinCodes[row] = asins.encode(subscription.getAsin());
+            frequencies[row] = (byte) subscription.getFrequency();
+            UUID id = parseUuid(subscription.getId());
+            if (id != null) {
+                idMostSignificantBits[row] = id.getMostSignificantBits();
+                idLeastSignificantBits[row] = id.getLeastSignificantBits();
+            } else {
+                otherIds.put(row, subscription.getId());
+            }
+            row++;
+        }
+        this.customerCodeCount = maxCode(customerCodes) + 1;
+        this.asinCodeCount = maxCode(asinCodes) + 1;
+    }
+
+    /**
+     * Builds a table from subscriptions, with its own dictionaries, aggregating on the common fork-join pool.
+     *
+     * @param subscriptions The subscriptions to copy into the table, in row order
+     * @return the table
+     */
+    public static SubscriptionTable of(Collection<Subscription> subscriptions) {
+        return of(subscriptions, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds a table from subscriptions, with its own dictionaries, aggregating on the given fork-join pool.
+     *
+     * @param subscriptions The subscriptions to copy into the table, in row order
+     * @param pool          The pool to run aggregations on
+     * @return the table
+     */
+    public static SubscriptionTable of(Collection<Subscription> subscriptions, ForkJoinPool pool) {
+        return of(subscriptions, new IdDictionary(), new IdDictionary(), pool);
+    }
+
+    /**
+     * Builds a table from subscriptions, encoding customer IDs and ASINs with the given dictionaries, and
+     * aggregating on the given fork-join pool.
+     * <p>
+     * Throws {@code IllegalArgumentException} if a customer ID or ASIN is null, or if a frequency is negative or
+     * larger than 127.
+     *
+     * @param subscriptions The subscriptions to copy into the table, in row order
+     * @param customerIds   The dictionary to encode customer IDs with
+     * @param asins         The dictionary to encode ASINs with
+     * @param pool          The pool to run aggregations on
+     * @return the table
+     */
+    public static SubscriptionTable of(Collection<Subscription> subscriptions, IdDictionary customerIds,
+                                       IdDictionary asins, ForkJoinPool pool) {
+        return new SubscriptionTable(subscriptions, customerIds, asins, pool);
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of subscriptions in the table
+     */
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * Rebuilds the {@code Subscription} for a row.
+     *
+     * @param row The row, from 0 to {@code size() - 1}
+     * @return the subscription
+     */
+    public Subscription getSubscription(int row) {
+        String id = otherIds.containsKey(row) ? otherIds.get(row) :
+            new UUID(idMostSignificantBits[row], idLeastSignificantBits[row]).toString();
+
+        return Subscription.builder()
+                           .withSubscriptionId(id)
+                           .withCustomerId(customerIds.decode(customerCodes[row]))
+                           .withAsin(asins.decode(asinCodes[row]))
+                           .withFrequency(frequencies[row])
+                           .build();
+    }
+
+    /**
+     * Returns one more than the largest ASIN code in the table. With its own dictionaries, this is the number of
+     * distinct ASINs.
+     *
+     * @return the number of ASIN codes the table's ASIN column ranges over
+     */
+    public int getAsinCodeCount() {
+        return asinCodeCount;
+    }
+
+    /**
+     * Returns the ASIN for an ASIN code.
+     *
+     * @param asinCode The code, from 0 to {@code getAsinCodeCount() - 1}
+     * @return the ASIN
+     */
+    public String getAsin(int asinCode) {
+        return asins.decode(asinCode);
+    }
+
+    /**
+     * Returns one more than the largest customer code in the table. With its own dictionaries, this is the number
+     * of distinct customers.
+     *
+     * @return the number of customer codes the table's customer column ranges over
+     */
+    public int getCustomerCodeCount() {
+        return customerCodeCount;
+    }
+
+    /**
+     * Counts the subscriptions for each ASIN code.
+     *
+     * @return an array of {@code getAsinCodeCount()} counts, indexed by ASIN code
+     */
+    public long[] countByAsinCode() {
+        return pool.submit(() -> IntStream.range(0, taskCount()).parallel()
+            .mapToObj(task -> {
+                long[] counts = new long[asinCodeCount];
+                for (int row = firstRow(task), end = firstRow(task + 1); row < end; row++) {
+                    counts[asinCodes[row]]++;
+                }
+                return counts;
+            })
+            .reduce(SubscriptionTable::addCounts)
+            .orElseGet(() -> new long[asinCodeCount]))
+            .join();
+    }
+
+    /**
+     * Counts the subscriptions for each ASIN.
+     *
+     * @return the number of subscriptions for each ASIN with at least one
+     */
+    public Map<String, Long> countByAsin() {
+        long[] counts = countByAsinCode();
+        Map<String, Long> countsByAsin = new HashMap<>(counts.length * 2);
+        for (int asinCode = 0; asinCode < counts.length; asinCode++) {
+            if (counts[asinCode] > 0) {
+                countsByAsin.put(asins.decode(asinCode), counts[asinCode]);
+            }
+        }
+
+        return countsByAsin;
+    }
+
+    /**
+     * Counts the subscriptions for each frequency.
+     *
+     * @return an array of 128 counts, where index {@code n} holds the number of subscriptions delivered every
+     *         {@code n} months
+     */
+    public long[] frequencyDistribution() {
+        return pool.submit(() -> IntStream.range(0, taskCount()).parallel()
+            .mapToObj(task -> {
+                long[] counts = new long[Byte.MAX_VALUE + 1];
+                for (int row = firstRow(task), end = firstRow(task + 1); row < end; row++) {
+                    counts[frequencies[row]]++;
+                }
+                return counts;
+            })
+            .reduce(SubscriptionTable::addCounts)
+            .orElseGet(() -> new long[Byte.MAX_VALUE + 1]))
+            .join();
+    }
+
+    /**
+     * Joins the subscriptions with the catalogue to total the list price of a year of deliveries. Each distinct
+     * ASIN's price is looked up once; the scan itself only reads the ASIN code and frequency columns.
+     * <p>
+     * A subscription delivered every N months contributes {@code listPriceCents * 12 / N} cents. The scan sums
+     * {@code listPriceCents * 12} per frequency, each sum is divided by its frequency once, and only the total is
+     * rounded half up to the cent, as {@code RevenueForecaster} does. Subscriptions with no catalogue price, or a
+     * frequency of 0, are left out.
+     *
+     * @param productService The product service to look up list prices with
+     * @return the total annual list price in cents
+     */
+    public long annualListPriceCents(AmazonProductService productService) {
+        long[] counts = countByAsinCode();
+        long[] listPriceCents = new long[asinCodeCount];
+        for (int asinCode = 0; asinCode < listPriceCents.length; asinCode++) {
+            String asin = counts[asinCode] > 0 ? asins.decode(asinCode) : null;
+            listPriceCents[asinCode] =
+                StringUtils.isBlank(asin) ? PriceCents.NONE : productService.getListPriceCents(asin);
+        }
+
+        // frequency -> list price of a year of monthly deliveries, summed over that frequency's subscriptions
+        long[] annualCentsByFrequency = pool.submit(() -> IntStream.range(0, taskCount()).parallel()
+            .mapToObj(task -> {
+                long[] sums = new long[Byte.MAX_VALUE + 1];
+                for (int row = firstRow(task), end = firstRow(task + 1); row < end; row++) {
+                    long cents = listPriceCents[asinCodes[row]];
+                    if (cents != PriceCents.NONE) {
+                        sums[frequencies[row]] += cents * MONTHS_PER_YEAR;
+                    }
+                }
+                return sums;
+            })
+            .reduce(SubscriptionTable::addCounts)
+            .orElseGet(() -> new long[Byte.MAX_VALUE + 1]))
+            .join();
+
+        BigDecimal totalCents = BigDecimal.ZERO;
+        for (int frequency = 1; frequency < annualCentsByFrequency.length; frequency++) {
+            if (annualCentsByFrequency[frequency] != 0) {
+                totalCents = totalCents.add(BigDecimal.valueOf(annualCentsByFrequency[frequency])
+                                                      .divide(BigDecimal.valueOf(frequency), MathContext.DECIMAL64));
+            }
+        }
+
+        return totalCents.setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Joins the subscriptions with the catalogue to count the subscriptions for each vendor. Subscriptions for
+     * ASINs missing from the catalogue, or without a vendor, are left out.
+     *
+     * @param productService The product service to look up vendors with
+     * @return the number of subscriptions for each vendor with at least one
+     */
+    public Map<String, Long> countByVendor(AmazonProductService productService) {
+        long[] counts = countByAsinCode();
+        List<String> tableAsins = new ArrayList<>();
+        for (int asinCode = 0; asinCode < counts.length; asinCode++) {
+            if (counts[asinCode] > 0 && StringUtils.isNotBlank(asins.decode(asinCode))) {
+                tableAsins.add(asins.decode(asinCode));
+            }
+        }
+        Map<String, Product> productsByAsin = productService.getProductsByAsins(tableAsins);
+
+        Map<String, Long> countsByVendor = new HashMap<>();
+        for (int asinCode = 0; asinCode < counts.length; asinCode++) {
+            if (counts[asinCode] == 0) {
+                continue;
+            }
+            Product product = productsByAsin.get(asins.decode(asinCode));
+            if (product != null && product.getVendor() != null) {
+                countsByVendor.merge(product.getVendor(), counts[asinCode], Long::sum);
+            }
+        }
+
+        return countsByVendor;
+    }
+
+    private int taskCount() {
+        long maxTasks = (long) pool.getParallelism() * TASKS_PER_THREAD;
+        return (int) Math.max(1, Math.min(maxTasks, rowCount / MIN_ROWS_PER_TASK));
+    }
+
+    private int firstRow(int task) {
+        return (int) ((long) rowCount * task / taskCount());
+    }
+
+    private static long[] addCounts(long[] counts, long[] otherCounts) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += otherCounts[i];
+        }
+
+        return counts;
+    }
+
+    private static int maxCode(int[] codes) {
+        int maxCode = -1;
+        for (int code : codes) {
+            maxCode = Math.max(maxCode, code);
+        }
+
+        return maxCode;
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id == null) {
+            return null;
+        }
+
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.amazon.ata.unittesting.subscribeandsave.dao;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event: appending new subscription records to the subscriptions file.
+ */
+@Name("com.amazon.ata.subscribeandsave.FileAppend")
+@Label("Subscription File Append")
+@Description("Appending new subscription records to the subscriptions file.")
+final class FileAppendEvent extends StorageIoEvent {
+}
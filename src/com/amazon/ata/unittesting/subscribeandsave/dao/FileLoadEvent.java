@@ -0,0 +1,14 @@
+package com.amazon.ata.unittesting.subscribeandsave.dao;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event: reading the subscriptions file into lines.
+ */
+@Name("com.amazon.ata.subscribeandsave.FileLoad")
+@Label("Subscription File Load")
+@Description("Reading the subscriptions file into lines.")
+final class FileLoadEvent extends StorageIoEvent {
+}
@@ -0,0 +1,14 @@
+package com.amazon.ata.unittesting.subscribeandsave.dao;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event: rewriting every record in the subscriptions file.
+ */
+@Name("com.amazon.ata.subscribeandsave.FileRewrite")
+@Label("Subscription File Rewrite")
+@Description("Rewriting every record in the subscriptions file.")
+final class FileRewriteEvent extends StorageIoEvent {
+}
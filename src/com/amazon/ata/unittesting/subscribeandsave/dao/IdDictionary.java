@@ -0,0 +1,117 @@
+package com.amazon.ata.unittesting.subscribeandsave.dao;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps each distinct identifier, such as a customer ID or an ASIN, to a dense int code: 0 for the first value
+ * encoded, 1 for the next, and so on. Codes never change once assigned, so indexes, duplicate checks and joins can
+ * compare and hash codes instead of Strings, and index by them into arrays.
+ * <p>
+ * Each value is held once, and {@code decode()} always returns that instance. Lookups are lock free and safe to
+ * share between threads; only assigning a new code takes a lock.
+ * <p>
+ * Nothing is ever evicted: a dictionary holds every value it has encoded for as long as it is reachable, and its
+ * codes keep growing with the number of distinct values seen. Components sharing a dictionary should key their
+ * own structures by the codes they use, rather than size them by {@code size()}.
+ */
+public class IdDictionary {
+
+    /**
+     * Returned by {@code find()} for a value that has no code.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // code -> value; replaced by a larger copy when full, and only ever read up to codes already published
+    private volatile String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Returns the code for a value, assigning the next code if the value has none yet.
+     * <p>
+     * Throws {@code IllegalArgumentException} if the value is null.
+     *
+     * @param value The value to encode
+     * @return the value's code
+     */
+    public int encode(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot encode a null value.");
+        }
+
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Returns the code for a value without assigning one.
+     *
+     * @param value The value to look up
+     * @return the value's code, or {@code NOT_FOUND} if it has none
+     */
+    public int find(String value) {
+        if (value == null) {
+            return NOT_FOUND;
+        }
+
+        Integer code = codes.get(value);
+        return code == null ? NOT_FOUND : code;
+    }
+
+    /**
+     * Returns the value for a code.
+     * <p>
+     * Throws {@code IllegalArgumentException} if the code has not been assigned.
+     *
+     * @param code The code to decode
+     * @return the value
+     */
+    public String decode(int code) {
+        String[] currentValues = values;
+        String value = code >= 0 && code < currentValues.length ? currentValues[code] : null;
+        if (value == null) {
+            throw new IllegalArgumentException("No value for code: " + code);
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the canonical instance of a value, assigning it a code if it has none yet.
+     *
+     * @param value The value to canonicalize
+     * @return the instance held by this dictionary, or {@code null} if the value is null
+     */
+    public String canonicalize(String value) {
+        return value == null ? null : decode(encode(value));
+    }
+
+    /**
+     * Returns the number of codes assigned, which is one more than the largest code.
+     *
+     * @return the number of distinct values encoded
+     */
+    public int size() {
+        return codes.size();
+    }
+}
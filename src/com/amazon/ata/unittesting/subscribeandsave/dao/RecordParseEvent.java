@@ -0,0 +1,14 @@
+package com.amazon.ata.unittesting.subscribeandsave.dao;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event: parsing subscription records read from the subscriptions file.
+ */
+@Name("com.amazon.ata.subscribeandsave.RecordParse")
+@Label("Subscription Record Parse")
+@Description("Parsing subscription records read from the subscriptions file.")
+final class RecordParseEvent extends StorageIoEvent {
+}
@@ -0,0 +1,26 @@
+package com.amazon.ata.unittesting.subscribeandsave.dao;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base for the Java Flight Recorder events emitted by {@code SubscriptionFileStorage}. Each event times one
+ * storage step and records how much data it touched. Events cost next to nothing unless a recording has them
+ * enabled; see {@code src/resources/jfr/subscription-storage.jfc}.
+ */
+@Category({"Subscribe and Save", "Storage"})
+@StackTrace(false)
+abstract class StorageIoEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("Record Count")
+    int recordCount;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
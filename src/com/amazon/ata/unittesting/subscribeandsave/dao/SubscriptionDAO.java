@@ -1,13 +1,25 @@
 package com.amazon.ata.unittesting.subscribeandsave.dao;
 
+import com.amazon.ata.unittesting.subscribeandsave.metrics.SubscriptionMetrics;
+import com.amazon.ata.unittesting.subscribeandsave.types.SubscribeRequest;
 import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * Provides read and write capability for Subscription data.
  */
 public class SubscriptionDAO {
 
     private SubscriptionFileStorage storage;
+    private final SubscriptionMetrics metrics;
+    // subscription ID -> storage read currently in flight for it
+    private final ConcurrentMap<String, CompletableFuture<Subscription>> inFlightReads = new ConcurrentHashMap<>();
 
     /**
      * Creates the DAO using the given storage manager.
@@ -15,17 +27,75 @@ public class SubscriptionDAO {
      * @param storage The object to manage subscription storage
      */
     public SubscriptionDAO(SubscriptionFileStorage storage) {
+        this(storage, SubscriptionMetrics.getDefault());
+    }
+
+    /**
+     * Creates the DAO using the given storage manager, counting coalesced reads in the given metrics.
+     *
+     * @param storage The object to manage subscription storage
+     * @param metrics The {@code SubscriptionMetrics} to record to
+     */
+    public SubscriptionDAO(SubscriptionFileStorage storage, SubscriptionMetrics metrics) {
         this.storage = storage;
+        this.metrics = metrics;
     }
 
     /**
      * Retrieves the {@code Subscription} for the given subscription ID.
+     * <p>
+     * Concurrent lookups for the same ID share a single storage read, and share its immutable result.
      *
      * @param subscriptionId The ID to look up {@code Subscription} for
      * @return The {@code Subscription} if found, {@code null} otherwise
      */
     public Subscription getSubscription(String subscriptionId) {
-        return storage.getSubscriptionById(subscriptionId);
+        CompletableFuture<Subscription> read = new CompletableFuture<>();
+        CompletableFuture<Subscription> inFlightRead = inFlightReads.putIfAbsent(subscriptionId, read);
+
+        if (inFlightRead == null) {
+            try {
+                read.complete(storage.getSubscriptionById(subscriptionId));
+            } catch (RuntimeException e) {
+                read.completeExceptionally(e);
+            } finally {
+                inFlightReads.remove(subscriptionId, read);
+            }
+            inFlightRead = read;
+        } else {
+            metrics.addCoalescedRead();
+        }
+
+        Subscription subscription;
+        try {
+            subscription = inFlightRead.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        return subscription;
+    }
+
+    /**
+     * Retrieves every {@code Subscription}.
+     *
+     * @return All subscriptions
+     */
+    public List<Subscription> getAllSubscriptions() {
+        return storage.getAllSubscriptions();
+    }
+
+    /**
+     * Retrieves all {@code Subscription}s for the given customer ID.
+     *
+     * @param customerId The customer ID to look up subscriptions for
+     * @return The customer's subscriptions, or an empty list if the customer has none
+     */
+    public List<Subscription> getSubscriptionsForCustomer(String customerId) {
+        return storage.getSubscriptionsForCustomer(customerId);
     }
 
     /**
@@ -45,4 +115,42 @@ public class SubscriptionDAO {
 
         return storage.createSubscription(subscription);
     }
+
+    /**
+     * Creates a new subscription, unless the customer is already subscribed to the ASIN.
+     *
+     * @param customerId The customer who is subscribing
+     * @param asin       The ASIN for the product customer is subscribing to
+     * @param frequency  The frequency of th subscription (# of months between deliveries)
+     * @return The newly created {@code Subscription}, or {@code null} if one already exists for the customer/ASIN
+     */
+    public Subscription createSubscriptionIfAbsent(String customerId, String asin, int frequency) {
+        Subscription subscription = Subscription.builder()
+                                                .withAsin(asin)
+                                                .withCustomerId(customerId)
+                                                .withFrequency(frequency)
+                                                .build();
+
+        return storage.createSubscriptionIfAbsent(subscription);
+    }
+
+    /**
+     * Creates new subscriptions in bulk, with a single write to storage.
+     *
+     * @param requests The subscribe requests to create subscriptions for
+     * @return a list the same size as {@code requests}, holding each newly created {@code Subscription}, or
+     *         {@code null} where a subscription already existed for that customer/ASIN pair
+     */
+    public List<Subscription> createSubscriptions(List<SubscribeRequest> requests) {
+        List<Subscription> subscriptions = new ArrayList<>(requests.size());
+        for (SubscribeRequest request : requests) {
+            subscriptions.add(Subscription.builder()
+                                          .withAsin(request.getAsin())
+                                          .withCustomerId(request.getCustomerId())
+                                          .withFrequency(request.getFrequency())
+                                          .build());
+        }
+
+        return storage.createSubscriptions(subscriptions);
+    }
 }
@@ -1,22 +1,57 @@
 package com.amazon.ata.unittesting.subscribeandsave.dao;
 
+import com.amazon.ata.unittesting.subscribeandsave.metrics.Operation;
+import com.amazon.ata.unittesting.subscribeandsave.metrics.SubscriptionMetrics;
 import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * Subscription data store that is file based.
+ * <p>
+ * File loads, record parsing, appends and rewrites are each reported as a Java Flight Recorder event carrying
+ * the file path, record count and bytes touched.
+ * <p>
+ * Subscriptions are immutable, so stored instances are handed out without copying. Customer IDs and ASINs repeat
+ * across many records; each is encoded through an {@code IdDictionary}, so each distinct value is held once and
+ * the customer index and duplicate checks compare int codes rather than Strings. Dictionaries can be shared with
+ * other components, such as analytics tables, so that codes mean the same thing everywhere. The index is keyed by
+ * code rather than laid out by it, so it only holds the customers in this storage's file however many codes a
+ * shared dictionary has assigned.
+ * <p>
+ * One instance can be shared for the life of the application. Before serving from its index it checks the file's
+ * modification time and size, and rebuilds the index if the file was changed by anything other than this storage.
+ * A rewrite that keeps the same size within the file system's timestamp resolution cannot be seen that way, so
+ * anything that rewrites the file directly should call {@code invalidate()} afterwards.
  */
 public class SubscriptionFileStorage {
 
     private File subscriptionsFile;
+    private final SubscriptionMetrics metrics;
+    private final IdDictionary customerIds;
+    private final IdDictionary asins;
+    // customer code -> that customer's subscriptions, loaded on first use and kept up to date by writes
+    private Map<Integer, CustomerSubscriptions> customerIndex;
+    // modification time and size of the file as the index last saw it; a null time forces a rebuild
+    private FileTime indexedModifiedTime;
+    private long indexedSize;
 
     /**
      * Creates a {@code SubscriptionFileStorage} using the specified file for reading/writing subscriptions.
@@ -24,36 +59,142 @@ public class SubscriptionFileStorage {
      * @param subscriptionsFile The subscription {@code File} to use
      */
     public SubscriptionFileStorage(File subscriptionsFile) {
+        this(subscriptionsFile, SubscriptionMetrics.getDefault());
+    }
+
+    /**
+     * Creates a {@code SubscriptionFileStorage} using the specified file for reading/writing subscriptions, and
+     * recording storage latencies and read volumes to the given metrics.
+     *
+     * @param subscriptionsFile The subscription {@code File} to use
+     * @param metrics           The {@code SubscriptionMetrics} to record to
+     */
+    public SubscriptionFileStorage(File subscriptionsFile, SubscriptionMetrics metrics) {
+        this(subscriptionsFile, metrics, new IdDictionary(), new IdDictionary());
+    }
+
+    /**
+     * Creates a {@code SubscriptionFileStorage} using the specified file for reading/writing subscriptions,
+     * recording to the given metrics, and encoding customer IDs and ASINs with the given dictionaries.
+     *
+     * @param subscriptionsFile The subscription {@code File} to use
+     * @param metrics           The {@code SubscriptionMetrics} to record to
+     * @param customerIds       The dictionary to encode customer IDs with
+     * @param asins             The dictionary to encode ASINs with
+     */
+    public SubscriptionFileStorage(File subscriptionsFile, SubscriptionMetrics metrics, IdDictionary customerIds,
+                                   IdDictionary asins) {
         this.subscriptionsFile = subscriptionsFile;
+        this.metrics = metrics;
+        this.customerIds = customerIds;
+        this.asins = asins;
     }
 
     /**
      * Creates a new subscription.
      * <p>
+     * Throws {@code IllegalArgumentException} if the customer ID or ASIN is null.
+     * <p>
      * Throws {@code StorageException} if the subscription already exists or if an input/output error occurs.
      *
      * @param subscription the subscription to store
      * @return The subscription that was written
      */
-    public Subscription createSubscription(Subscription subscription) {
-        Subscription existingSubscription = getSubscription(subscription.getCustomerId(), subscription.getAsin());
+    public synchronized Subscription createSubscription(Subscription subscription) {
+        long startNanos = System.nanoTime();
+        try {
+            Subscription existingSubscription = getSubscription(subscription.getCustomerId(), subscription.getAsin());
 
-        if (existingSubscription != null) {
-            throw new StorageException(String.format(
-                "Subscription already exists: %s. Please use updateSubscription()", existingSubscription));
-        }
+            if (existingSubscription != null) {
+                throw new StorageException(String.format(
+                    "Subscription already exists: %s. Please use updateSubscription()", existingSubscription));
+            }
 
-        String id = UUID.randomUUID().toString();
-        subscription.setId(id);
-        String subscriptionRecord = generateSubscriptionStorageRepresentation(subscription);
+            return writeNewSubscription(subscription);
+        } finally {
+            metrics.recordLatency(Operation.CREATE, System.nanoTime() - startNanos);
+        }
+    }
 
+    /**
+     * Creates a new subscription, unless one already exists for the same customer/ASIN pair.
+     * <p>
+     * Throws {@code IllegalArgumentException} if the customer ID or ASIN is null.
+     * <p>
+     * Throws {@code StorageException} if an input/output error occurs.
+     *
+     * @param subscription the subscription to store
+     * @return The subscription that was written, or {@code null} if the subscription already exists
+     */
+    public synchronized Subscription createSubscriptionIfAbsent(Subscription subscription) {
+        long startNanos = System.nanoTime();
         try {
-            FileUtils.writeStringToFile(subscriptionsFile, subscriptionRecord, Charset.defaultCharset(), true);
-        } catch (IOException e) {
-            throw new StorageException("Unable to save subscription.", e);
+            if (getSubscription(subscription.getCustomerId(), subscription.getAsin()) != null) {
+                return null;
+            }
+
+            return writeNewSubscription(subscription);
+        } finally {
+            metrics.recordLatency(Operation.CREATE, System.nanoTime() - startNanos);
         }
+    }
+
+    /**
+     * Creates new subscriptions in bulk. Existing subscriptions are read once and all new records are written
+     * with a single append.
+     * <p>
+     * A subscription is skipped if one already exists for its customer/ASIN pair, either in storage or earlier in
+     * the same batch.
+     * <p>
+     * Throws {@code IllegalArgumentException} if a customer ID or ASIN is null, or {@code StorageException} if an
+     * input/output error occurs. In either case none of the subscriptions are written.
+     *
+     * @param subscriptions the subscriptions to store
+     * @return a list the same size as {@code subscriptions}, holding each written subscription, or {@code null}
+     *         where the subscription already existed
+     */
+    public synchronized List<Subscription> createSubscriptions(final List<Subscription> subscriptions) {
+        long startNanos = System.nanoTime();
+        try {
+            Set<Long> batchKeys = new HashSet<>();
+            List<Subscription> results = new ArrayList<>(subscriptions.size());
+            StringBuilder subscriptionRecords = new StringBuilder();
+            int newRecordCount = 0;
+            getCustomerIndex();
+
+            for (Subscription subscription : subscriptions) {
+                int customerCode = encode(customerIds, subscription.getCustomerId(), "customer ID");
+                int asinCode = encode(asins, subscription.getAsin(), "ASIN");
+                if (getSubscription(customerCode, asinCode) != null ||
+                    !batchKeys.add(customerAsinKey(customerCode, asinCode))) {
+                    results.add(null);
+                    continue;
+                }
+
+                Subscription storedSubscription = toStored(subscription, UUID.randomUUID().toString());
+                subscriptionRecords.append(generateSubscriptionStorageRepresentation(storedSubscription));
+                newRecordCount++;
+                results.add(storedSubscription);
+            }
+
+            if (subscriptionRecords.length() > 0) {
+                try {
+                    writeRecords(subscriptionRecords.toString(), newRecordCount, true);
+                } catch (IOException e) {
+                    throw new StorageException("Unable to save subscriptions.", e);
+                }
+            }
+
+            for (Subscription subscription : results) {
+                if (subscription != null) {
+                    addToCustomerIndex(subscription);
+                }
+            }
 
-        return subscription;
+            return results;
+        } finally {
+            metrics.recordLatency(Operation.CREATE, System.nanoTime() - startNanos);
+        }
     }
 
     /**
@@ -67,40 +208,46 @@ public class SubscriptionFileStorage {
      * @param subscription The {@code Subscription} to update (must already have a subscription ID)
      * @return the {@code Subscription} if writing succeeded
      */
-    public Subscription updateSubscription(final Subscription subscription) {
-        if (null == subscription) {
-            throw new IllegalArgumentException("Subscription cannot be null");
-        }
-        if (null == subscription.getId()) {
-            throw new IllegalArgumentException("Subscription's ID cannot be null");
-        }
+    public synchronized Subscription updateSubscription(final Subscription subscription) {
+        long startNanos = System.nanoTime();
+        try {
+            if (null == subscription) {
+                throw new IllegalArgumentException("Subscription cannot be null");
+            }
+            if (null == subscription.getId()) {
+                throw new IllegalArgumentException("Subscription's ID cannot be null");
+            }
 
-        Subscription[] existingSubscriptions = loadSubscriptions();
-        boolean foundExistingSubscription = false;
-        Subscription existingSubscription = null;
+            Subscription[] existingSubscriptions = loadSubscriptions();
+            boolean foundExistingSubscription = false;
+            Subscription existingSubscription = null;
 
-        for (int i = 0; i < existingSubscriptions.length; i++) {
-            Subscription currSubscription = existingSubscriptions[i];
+            for (int i = 0; i < existingSubscriptions.length; i++) {
+                Subscription currSubscription = existingSubscriptions[i];
 
-            if (subscription.getId().equals(currSubscription.getId())) {
-                foundExistingSubscription = true;
-                existingSubscription = subscription;
-                break;
+                if (subscription.getId().equals(currSubscription.getId())) {
+                    foundExistingSubscription = true;
+                    existingSubscription = subscription;
+                    break;
+                }
             }
-        }
 
-        if (!foundExistingSubscription) {
-            throw new IllegalArgumentException("No subscription found for ID: " + subscription.getId());
-        }
+            if (!foundExistingSubscription) {
+                throw new IllegalArgumentException("No subscription found for ID: " + subscription.getId());
+            }
 
-        String subscriptionRecords = generateSubscriptionRecords(existingSubscriptions);
-        try {
-            FileUtils.writeStringToFile(subscriptionsFile, subscriptionRecords, Charset.defaultCharset(), false);
-        } catch (IOException e) {
-            throw new StorageException("Unable to update subscription.", e);
-        }
+            String subscriptionRecords = generateSubscriptionRecords(existingSubscriptions);
+            try {
+                writeRecords(subscriptionRecords, existingSubscriptions.length, false);
+            } catch (IOException e) {
+                throw new StorageException("Unable to update subscription.", e);
+            }
+            buildCustomerIndex(existingSubscriptions);
 
-        return existingSubscription;
+            return existingSubscription;
+        } finally {
+            metrics.recordLatency(Operation.UPDATE, System.nanoTime() - startNanos);
+        }
     }
 
     /**
@@ -114,38 +261,236 @@ public class SubscriptionFileStorage {
 
         for (Subscription subscription : subscriptions) {
             if (subscriptionId.equals(subscription.getId())) {
-                return new Subscription(subscription);
+                return subscription;
             }
         }
 
         return null;
     }
 
+    /**
+     * Gets every {@code Subscription} in storage.
+     *
+     * @return All stored subscriptions, in storage order
+     */
+    public List<Subscription> getAllSubscriptions() {
+        return Arrays.asList(loadSubscriptions());
+    }
+
+    /**
+     * Gets all {@code Subscription}s for a customer. Served from an in-memory index keyed by customer ID, so the
+     * cost depends on the number of subscriptions the customer has rather than the size of the store.
+     *
+     * @param customerId The customer ID to look up
+     * @return The customer's subscriptions, or an empty list if the customer has none
+     */
+    public synchronized List<Subscription> getSubscriptionsForCustomer(final String customerId) {
+        CustomerSubscriptions customerSubscriptions = getCustomerSubscriptions(customerId);
+        if (customerSubscriptions == null) {
+            return new ArrayList<>();
+        }
+
+        return new ArrayList<>(customerSubscriptions.subscriptions);
+    }
+
+    /**
+     * Loads the customer index now, rather than on the first lookup that needs it.
+     * <p>
+     * Throws {@code StorageException} if the subscription file cannot be read.
+     */
+    public synchronized void preload() {
+        getCustomerIndex();
+    }
+
+    /**
+     * Discards the customer index, so the next lookup that needs it reloads the file. Call after changing the file
+     * other than through this storage.
+     */
+    public synchronized void invalidate() {
+        customerIndex = null;
+        indexedModifiedTime = null;
+    }
+
     private Subscription getSubscription(final String customerId, final String asin) {
-        Subscription[] subscriptions = loadSubscriptions();
+        CustomerSubscriptions customerSubscriptions = getCustomerSubscriptions(customerId);
+        if (customerSubscriptions == null) {
+            return null;
+        }
+
+        return customerSubscriptions.find(asins.find(asin));
+    }
+
+    private Subscription getSubscription(int customerCode, int asinCode) {
+        CustomerSubscriptions customerSubscriptions = getCustomerSubscriptions(customerCode);
+        if (customerSubscriptions == null) {
+            return null;
+        }
+
+        return customerSubscriptions.find(asinCode);
+    }
+
+    private CustomerSubscriptions getCustomerSubscriptions(final String customerId) {
+        // the index must be loaded before looking up the code, as loading may assign it
+        getCustomerIndex();
+        return getCustomerSubscriptions(customerIds.find(customerId));
+    }
+
+    // callers must bring the index up to date with getCustomerIndex() first
+    private CustomerSubscriptions getCustomerSubscriptions(int customerCode) {
+        return customerIndex.get(customerCode);
+    }
+
+    private Map<Integer, CustomerSubscriptions> getCustomerIndex() {
+        BasicFileAttributes attributes = readFileAttributes();
+        if (customerIndex == null || !isIndexed(attributes)) {
+            buildCustomerIndex(loadSubscriptions());
+            // recorded from before the load, so a change made during it is picked up by the next read
+            indexedModifiedTime = attributes == null ? null : attributes.lastModifiedTime();
+            indexedSize = attributes == null ? -1 : attributes.size();
+        }
 
+        return customerIndex;
+    }
+
+    private boolean isIndexed(BasicFileAttributes attributes) {
+        return attributes != null && attributes.lastModifiedTime().equals(indexedModifiedTime) &&
+            attributes.size() == indexedSize;
+    }
+
+    // callers update the index themselves, so a write must not make it look stale - but only when the index was
+    // current before the write and the file now holds exactly what was indexed plus this write
+    private void recordWritten(BasicFileAttributes attributesBefore, byte[] data, boolean append) {
+        BasicFileAttributes attributes = readFileAttributes();
+        boolean written = append ?
+            isIndexed(attributesBefore) && attributes != null &&
+                attributes.size() == indexedSize + data.length :
+            attributes != null && attributes.size() == data.length;
+        if (!written) {
+            indexedModifiedTime = null;
+            return;
+        }
+
+        indexedModifiedTime = attributes.lastModifiedTime();
+        indexedSize = attributes.size();
+    }
+
+    private BasicFileAttributes readFileAttributes() {
+        try {
+            return Files.readAttributes(subscriptionsFile.toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void buildCustomerIndex(Subscription[] subscriptions) {
+        customerIndex = new HashMap<>();
         for (Subscription subscription : subscriptions) {
-            if (customerId.equals(subscription.getCustomerId()) && asin.equals(subscription.getAsin())) {
-                return new Subscription(subscription);
-            }
+            addToCustomerIndex(subscription);
         }
+    }
 
-        return null;
+    private void addToCustomerIndex(Subscription subscription) {
+        if (customerIndex == null) {
+            return;
+        }
+
+        int customerCode = customerIds.encode(subscription.getCustomerId());
+        customerIndex.computeIfAbsent(customerCode, code -> new CustomerSubscriptions())
+                     .add(asins.encode(subscription.getAsin()), subscription);
     }
 
     private Subscription[] loadSubscriptions() {
+        long startNanos = System.nanoTime();
         try {
-            List<String> lines = FileUtils.readLines(subscriptionsFile, Charset.defaultCharset());
+            FileLoadEvent loadEvent = new FileLoadEvent();
+            loadEvent.begin();
+            byte[] data = FileUtils.readFileToByteArray(subscriptionsFile);
+            List<String> lines = IOUtils.readLines(new ByteArrayInputStream(data), Charset.defaultCharset());
+            long bytes = data.length;
+            loadEvent.end();
+            if (loadEvent.shouldCommit()) {
+                loadEvent.path = subscriptionsFile.getPath();
+                loadEvent.recordCount = lines.size();
+                loadEvent.bytes = bytes;
+                loadEvent.commit();
+            }
 
+            RecordParseEvent parseEvent = new RecordParseEvent();
+            parseEvent.begin();
             List<Subscription> subscriptions = new ArrayList<>();
             for (String line : lines) {
                 subscriptions.add(readSubscriptionStorageRepresentation(line));
             }
+            parseEvent.end();
+            if (parseEvent.shouldCommit()) {
+                parseEvent.path = subscriptionsFile.getPath();
+                parseEvent.recordCount = subscriptions.size();
+                parseEvent.bytes = bytes;
+                parseEvent.commit();
+            }
 
+            metrics.addRecordsScanned(subscriptions.size());
+            metrics.addBytesRead(bytes);
             return subscriptions.toArray(new Subscription[0]);
         } catch (IOException e) {
             throw new StorageException("Unable to access subscription data.", e);
+        } finally {
+            metrics.recordLatency(Operation.LOAD, System.nanoTime() - startNanos);
+        }
+    }
+
+    private Subscription writeNewSubscription(Subscription subscription) {
+        Subscription storedSubscription = toStored(subscription, UUID.randomUUID().toString());
+        String subscriptionRecord = generateSubscriptionStorageRepresentation(storedSubscription);
+
+        try {
+            writeRecords(subscriptionRecord, 1, true);
+        } catch (IOException e) {
+            throw new StorageException("Unable to save subscription.", e);
         }
+        addToCustomerIndex(storedSubscription);
+
+        return storedSubscription;
+    }
+
+    private Subscription toStored(Subscription subscription, String id) {
+        return Subscription.builder()
+                           .withSubscriptionId(id)
+                           .withCustomerId(customerIds.decode(
+                               encode(customerIds, subscription.getCustomerId(), "customer ID")))
+                           .withAsin(asins.decode(encode(asins, subscription.getAsin(), "ASIN")))
+                           .withFrequency(subscription.getFrequency())
+                           .build();
+    }
+
+    private static int encode(IdDictionary dictionary, String value, String fieldName) {
+        if (value == null) {
+            throw new IllegalArgumentException("Subscription's " + fieldName + " cannot be null");
+        }
+
+        return dictionary.encode(value);
+    }
+
+    private void writeRecords(String records, int recordCount, boolean append) throws IOException {
+        StorageIoEvent writeEvent = append ? new FileAppendEvent() : new FileRewriteEvent();
+        writeEvent.begin();
+        byte[] data = records.getBytes(Charset.defaultCharset());
+        BasicFileAttributes attributesBefore = customerIndex == null ? null : readFileAttributes();
+        FileUtils.writeByteArrayToFile(subscriptionsFile, data, append);
+        if (customerIndex != null) {
+            recordWritten(attributesBefore, data, append);
+        }
+        writeEvent.end();
+        if (writeEvent.shouldCommit()) {
+            writeEvent.path = subscriptionsFile.getPath();
+            writeEvent.recordCount = recordCount;
+            writeEvent.bytes = data.length;
+            writeEvent.commit();
+        }
+    }
+
+    private static long customerAsinKey(int customerCode, int asinCode) {
+        return (long) customerCode << Integer.SIZE | asinCode;
     }
 
     private String generateSubscriptionRecords(Subscription[] subscriptions) {
@@ -175,9 +520,35 @@ public class SubscriptionFileStorage {
 
         return Subscription.builder()
                            .withSubscriptionId(subscriptionData[0].trim())
-                           .withCustomerId(subscriptionData[1])
-                           .withAsin(subscriptionData[2])
+                           .withCustomerId(customerIds.canonicalize(subscriptionData[1]))
+                           .withAsin(asins.canonicalize(subscriptionData[2]))
                            .withFrequency(Integer.parseInt(subscriptionData[3].trim()))
                            .build();
     }
+
+    /**
+     * One customer's subscriptions, with the ASIN code of each alongside so duplicate checks compare ints.
+     */
+    private static final class CustomerSubscriptions {
+        private final List<Subscription> subscriptions = new ArrayList<>(2);
+        private int[] asinCodes = new int[2];
+
+        private void add(int asinCode, Subscription subscription) {
+            if (subscriptions.size() == asinCodes.length) {
+                asinCodes = Arrays.copyOf(asinCodes, asinCodes.length * 2);
+            }
+            asinCodes[subscriptions.size()] = asinCode;
+            subscriptions.add(subscription);
+        }
+
+        private Subscription find(int asinCode) {
+            for (int i = 0; i < subscriptions.size(); i++) {
+                if (asinCodes[i] == asinCode) {
+                    return subscriptions.get(i);
+                }
+            }
+
+            return null;
+        }
+    }
 }
@@ -0,0 +1,89 @@
+package com.amazon.ata.unittesting.subscribeandsave.forecast;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Expected Subscribe and Save revenue, broken down by vendor and by ASIN. Annual figures are exact; monthly figures
+ * are the annual figures divided by 12, rounded to the cent.
+ */
+public class RevenueForecast {
+
+    private static final BigDecimal MONTHS_PER_YEAR = BigDecimal.valueOf(12);
+
+    private final Map<String, BigDecimal> annualRevenueByVendor;
+    private final Map<String, BigDecimal> annualRevenueByAsin;
+    private final long unpricedSubscriptionCount;
+
+    /**
+     * Creates a forecast from annual revenue totals.
+     *
+     * @param annualRevenueByVendor     Expected annual revenue for each vendor
+     * @param annualRevenueByAsin       Expected annual revenue for each ASIN
+     * @param unpricedSubscriptionCount Number of subscriptions left out because their ASIN has no catalog price
+     */
+    public RevenueForecast(Map<String, BigDecimal> annualRevenueByVendor,
+                           Map<String, BigDecimal> annualRevenueByAsin,
+                           long unpricedSubscriptionCount) {
+        this.annualRevenueByVendor = Collections.unmodifiableMap(new HashMap<>(annualRevenueByVendor));
+        this.annualRevenueByAsin = Collections.unmodifiableMap(new HashMap<>(annualRevenueByAsin));
+        this.unpricedSubscriptionCount = unpricedSubscriptionCount;
+    }
+
+    public Map<String, BigDecimal> getAnnualRevenueByVendor() {
+        return annualRevenueByVendor;
+    }
+
+    public Map<String, BigDecimal> getAnnualRevenueByAsin() {
+        return annualRevenueByAsin;
+    }
+
+    public Map<String, BigDecimal> getMonthlyRevenueByVendor() {
+        return toMonthly(annualRevenueByVendor);
+    }
+
+    public Map<String, BigDecimal> getMonthlyRevenueByAsin() {
+        return toMonthly(annualRevenueByAsin);
+    }
+
+    /**
+     * Returns the expected annual revenue across all vendors.
+     *
+     * @return the total annual revenue
+     */
+    public BigDecimal getTotalAnnualRevenue() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal vendorRevenue : annualRevenueByVendor.values()) {
+            total = total.add(vendorRevenue);
+        }
+
+        return total;
+    }
+
+    public long getUnpricedSubscriptionCount() {
+        return unpricedSubscriptionCount;
+    }
+
+    private Map<String, BigDecimal> toMonthly(Map<String, BigDecimal> annualRevenue) {
+        Map<String, BigDecimal> monthlyRevenue = new HashMap<>(annualRevenue.size() * 2);
+        for (Map.Entry<String, BigDecimal> entry : annualRevenue.entrySet()) {
+            monthlyRevenue.put(entry.getKey(), entry.getValue().divide(MONTHS_PER_YEAR, 2, RoundingMode.HALF_UP));
+        }
+
+        return monthlyRevenue;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{TotalAnnualRevenue: ").append(getTotalAnnualRevenue());
+        sb.append(", AnnualRevenueByVendor: ").append(annualRevenueByVendor);
+        sb.append(", UnpricedSubscriptions: ").append(unpricedSubscriptionCount);
+        sb.append("}");
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package com.amazon.ata.unittesting.subscribeandsave.forecast;
+
+import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonProductService;
+import com.amazon.ata.resources.debugging.classroom.dependencies.Product;
+import com.amazon.ata.unittesting.subscribeandsave.dao.SubscriptionDAO;
+import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Forecasts Subscribe and Save revenue by joining every subscription with its product's list price. A subscription
+ * delivered every N months contributes {@code listPrice * 12 / N} per year. The products for all subscribed ASINs are
+ * fetched from the product service in one bulk call before the join.
+ * <p>
+ * The join runs as a parallel stream on a fork-join pool. Each worker sums into its own partial totals, and the
+ * partial totals are only merged once per split, so workers never contend on shared maps.
+ */
+public class RevenueForecaster {
+
+    private static final BigDecimal MONTHS_PER_YEAR = BigDecimal.valueOf(12);
+
+    private final SubscriptionDAO subscriptionDAO;
+    private final AmazonProductService productService;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a forecaster that runs on the common fork-join pool.
+     *
+     * @param subscriptionDAO The subscription DAO to read subscriptions from
+     * @param productService  The product service to look up list prices with
+     */
+    public RevenueForecaster(SubscriptionDAO subscriptionDAO, AmazonProductService productService) {
+        this(subscriptionDAO, productService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a forecaster that runs on the given fork-join pool.
+     *
+     * @param subscriptionDAO The subscription DAO to read subscriptions from
+     * @param productService  The product service to look up list prices with
+     * @param pool            The pool to run the parallel aggregation on
+     */
+    public RevenueForecaster(SubscriptionDAO subscriptionDAO, AmazonProductService productService, ForkJoinPool pool) {
+        this.subscriptionDAO = subscriptionDAO;
+        this.productService = productService;
+        this.pool = pool;
+    }
+
+    /**
+     * Forecasts revenue for all current subscriptions.
+     *
+     * @return the {@code RevenueForecast} per vendor and per ASIN
+     */
+    public RevenueForecast forecast() {
+        return forecast(subscriptionDAO.getAllSubscriptions());
+    }
+
+    /**
+     * Forecasts revenue for the given subscriptions. Subscriptions for ASINs missing from the catalog, or with an
+     * invalid frequency, are counted as unpriced and left out of the totals.
+     *
+     * @param subscriptions The subscriptions to forecast revenue for
+     * @return the {@code RevenueForecast} per vendor and per ASIN
+     */
+    public RevenueForecast forecast(List<Subscription> subscriptions) {
+        Set<String> asins = subscriptions.stream()
+                                         .map(Subscription::getAsin)
+                                         .collect(Collectors.toSet());
+        Map<String, Product> productsByAsin = productService.getProductsByAsins(asins);
+
+        PartialForecast total = pool.submit(() -> subscriptions.parallelStream()
+            .collect(Collector.of(PartialForecast::new,
+                                  (PartialForecast partial, Subscription subscription) ->
+                                      accumulate(partial, subscription, productsByAsin),
+                                  PartialForecast::merge,
+                                  Collector.Characteristics.UNORDERED)))
+            .join();
+
+        return new RevenueForecast(total.annualRevenueByVendor, total.annualRevenueByAsin, total.unpricedCount);
+    }
+
+    private void accumulate(PartialForecast partial, Subscription subscription, Map<String, Product> productsByAsin) {
+        Product product = productsByAsin.get(subscription.getAsin());
+        if (product == null || product.getListPrice() == null || subscription.getFrequency() < 1) {
+            partial.unpricedCount++;
+            return;
+        }
+
+        BigDecimal annualRevenue = product.getListPrice()
+                                          .multiply(MONTHS_PER_YEAR)
+                                          .divide(BigDecimal.valueOf(subscription.getFrequency()),
+                                                  MathContext.DECIMAL64);
+
+        partial.annualRevenueByVendor.merge(product.getVendor(), annualRevenue, BigDecimal::add);
+        partial.annualRevenueByAsin.merge(product.getAsin(), annualRevenue, BigDecimal::add);
+    }
+
+    /**
+     * Running totals owned by a single worker of the parallel aggregation.
+     */
+    private static class PartialForecast {
+        private final Map<String, BigDecimal> annualRevenueByVendor = new HashMap<>();
+        private final Map<String, BigDecimal> annualRevenueByAsin = new HashMap<>();
+        private long unpricedCount;
+
+        private PartialForecast merge(PartialForecast other) {
+            other.annualRevenueByVendor.forEach((vendor, revenue) ->
+                annualRevenueByVendor.merge(vendor, revenue, BigDecimal::add));
+            other.annualRevenueByAsin.forEach((asin, revenue) ->
+                annualRevenueByAsin.merge(asin, revenue, BigDecimal::add));
+            unpricedCount += other.unpricedCount;
+
+            return this;
+        }
+    }
+}
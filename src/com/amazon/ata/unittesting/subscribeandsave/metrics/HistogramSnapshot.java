@@ -0,0 +1,64 @@
+package com.amazon.ata.unittesting.subscribeandsave.metrics;
+
+/**
+ * Point-in-time summary of a {@code LatencyHistogram}. All values are in nanoseconds.
+ */
+public class HistogramSnapshot {
+
+    static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] percentileNanos;
+
+    HistogramSnapshot(long count, long totalNanos, long maxNanos, long[] percentileNanos) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.percentileNanos = percentileNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getP50Nanos() {
+        return percentileNanos[0];
+    }
+
+    public long getP90Nanos() {
+        return percentileNanos[1];
+    }
+
+    public long getP99Nanos() {
+        return percentileNanos[2];
+    }
+
+    public long getP999Nanos() {
+        return percentileNanos[3];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{Count: ").append(count);
+        sb.append(", Mean: ").append(getMeanNanos());
+        sb.append(", P50: ").append(getP50Nanos());
+        sb.append(", P90: ").append(getP90Nanos());
+        sb.append(", P99: ").append(getP99Nanos());
+        sb.append(", P99.9: ").append(getP999Nanos());
+        sb.append(", Max: ").append(maxNanos);
+        sb.append("}");
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.amazon.ata.unittesting.subscribeandsave.metrics;
+
+/**
+ * The subscription operations whose latency is tracked by {@code SubscriptionMetrics}.
+ */
+public enum Operation {
+    /** {@code SubscriptionService.subscribe()} and {@code trySubscribe()}. */
+    SUBSCRIBE,
+    /** {@code SubscriptionService.getSubscription()}. */
+    GET_SUBSCRIPTION,
+    /** Writing new subscriptions in {@code SubscriptionFileStorage}. */
+    CREATE,
+    /** Rewriting the subscriptions file in {@code SubscriptionFileStorage.updateSubscription()}. */
+    UPDATE,
+    /** Reading and parsing the subscriptions file in {@code SubscriptionFileStorage}. */
+    LOAD
+}
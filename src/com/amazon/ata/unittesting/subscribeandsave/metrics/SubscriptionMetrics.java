@@ -0,0 +1,178 @@
+package com.amazon.ata.unittesting.subscribeandsave.metrics;
+
+import com.amazon.ata.unittesting.subscribeandsave.types.RejectionReason;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Latency histograms and throughput counters for the subscription service and its storage. Recording is lock-free
+ * and never allocates, so it is cheap enough to leave on in every call path. Read the numbers with
+ * {@code getLatency()} and the counter getters, or over JMX after calling {@code registerMBean()}.
+ */
+public class SubscriptionMetrics implements SubscriptionMetricsMXBean {
+
+    /** The object name {@code registerMBean()} registers under. */
+    public static final String OBJECT_NAME = "com.amazon.ata.unittesting.subscribeandsave:type=SubscriptionMetrics";
+
+    private static final SubscriptionMetrics DEFAULT = new SubscriptionMetrics();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final AtomicLongArray rejections = new AtomicLongArray(RejectionReason.values().length);
+    private final LongAdder recordsScanned = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder coalescedReads = new LongAdder();
+
+    /**
+     * Creates an empty set of metrics.
+     */
+    public SubscriptionMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Returns the metrics shared by every component that was not given its own.
+     *
+     * @return the default metrics
+     */
+    public static SubscriptionMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Records how long an operation took.
+     *
+     * @param operation The operation that ran
+     * @param nanos     How long it took, in nanoseconds
+     */
+    public void recordLatency(Operation operation, long nanos) {
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * Counts a rejected subscribe request.
+     *
+     * @param rejectionReason Why the request was rejected
+     */
+    public void recordRejection(RejectionReason rejectionReason) {
+        rejections.incrementAndGet(rejectionReason.ordinal());
+    }
+
+    /**
+     * Counts subscription records read from storage.
+     *
+     * @param count The number of records read
+     */
+    public void addRecordsScanned(long count) {
+        recordsScanned.add(count);
+    }
+
+    /**
+     * Counts bytes read from storage.
+     *
+     * @param count The number of bytes read
+     */
+    public void addBytesRead(long count) {
+        bytesRead.add(count);
+    }
+
+    /**
+     * Counts a lookup that was served by another caller's in-flight storage read.
+     */
+    public void addCoalescedRead() {
+        coalescedReads.increment();
+    }
+
+    /**
+     * Returns a latency summary for one operation.
+     *
+     * @param operation The operation to summarize
+     * @return the operation's latency snapshot
+     */
+    public HistogramSnapshot getLatency(Operation operation) {
+        return latencies[operation.ordinal()].snapshot();
+    }
+
+    /**
+     * Returns how many subscribe requests were rejected for a reason.
+     *
+     * @param rejectionReason The reason to look up
+     * @return the number of rejections
+     */
+    public long getRejections(RejectionReason rejectionReason) {
+        return rejections.get(rejectionReason.ordinal());
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getLatencies() {
+        Map<String, HistogramSnapshot> snapshots = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            snapshots.put(operation.name(), getLatency(operation));
+        }
+
+        return snapshots;
+    }
+
+    @Override
+    public Map<String, Long> getRejections() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (RejectionReason rejectionReason : RejectionReason.values()) {
+            counts.put(rejectionReason.name(), getRejections(rejectionReason));
+        }
+
+        return counts;
+    }
+
+    @Override
+    public long getRecordsScanned() {
+        return recordsScanned.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getCoalescedReads() {
+        return coalescedReads.sum();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under {@code OBJECT_NAME}.
+     * <p>
+     * Throws {@code IllegalStateException} if registration fails, including when metrics are already registered
+     * under that name.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register subscription metrics with JMX.", e);
+        }
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if registered.
+     */
+    public void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to unregister subscription metrics from JMX.", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.amazon.ata.unittesting.subscribeandsave.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@code SubscriptionMetrics}.
+ */
+public interface SubscriptionMetricsMXBean {
+
+    /**
+     * Returns a latency summary for every tracked operation.
+     *
+     * @return latency snapshots keyed by operation name
+     */
+    Map<String, HistogramSnapshot> getLatencies();
+
+    /**
+     * Returns the number of subscribe requests rejected for each reason.
+     *
+     * @return rejection counts keyed by rejection reason name
+     */
+    Map<String, Long> getRejections();
+
+    long getRecordsScanned();
+
+    long getBytesRead();
+
+    long getCoalescedReads();
+}
@@ -0,0 +1,172 @@
+package com.amazon.ata.unittesting.subscribeandsave.schedule;
+
+import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks when each subscription's next delivery is due. Subscriptions are kept in one bucket per month (a calendar
+ * queue), so finding the deliveries due in a month costs the number of deliveries due rather than the number of
+ * subscriptions. Dispatching a month moves each of its subscriptions to the bucket {@code frequency} months later.
+ * <p>
+ * Entries are keyed by subscription ID, so each subscription has at most one scheduled delivery: scheduling it
+ * again moves it, and {@code unschedule()} removes it.
+ */
+public class DeliverySchedule {
+
+    // month -> subscription ID -> subscription, in the order they were scheduled into that month
+    private final Map<YearMonth, Map<String, Subscription>> buckets = new HashMap<>();
+    // subscription ID -> the month its next delivery is due
+    private final Map<String, YearMonth> scheduledMonths = new HashMap<>();
+
+    /**
+     * Schedules the next delivery of a subscription. If the subscription is already scheduled, its delivery is
+     * moved to the given month.
+     * <p>
+     * Throws {@code IllegalArgumentException} if the subscription, its ID or the month is null, or if the
+     * subscription's frequency is less than 1.
+     *
+     * @param subscription The {@code Subscription} to schedule
+     * @param nextDelivery The month the next delivery is due
+     */
+    public synchronized void schedule(Subscription subscription, YearMonth nextDelivery) {
+        if (subscription == null || nextDelivery == null) {
+            throw new IllegalArgumentException("A subscription and delivery month must be provided.");
+        }
+        if (subscription.getId() == null) {
+            throw new IllegalArgumentException("Cannot schedule a subscription without an ID.");
+        }
+        if (subscription.getFrequency() < 1) {
+            throw new IllegalArgumentException("Cannot schedule a subscription with frequency: " +
+                subscription.getFrequency());
+        }
+
+        unschedule(subscription.getId());
+        add(subscription, nextDelivery);
+    }
+
+    /**
+     * Removes a subscription's scheduled delivery.
+     *
+     * @param subscriptionId The ID of the subscription to unschedule
+     * @return true if the subscription was scheduled, false otherwise
+     */
+    public synchronized boolean unschedule(String subscriptionId) {
+        YearMonth month = subscriptionId == null ? null : scheduledMonths.remove(subscriptionId);
+        if (month == null) {
+            return false;
+        }
+
+        Map<String, Subscription> bucket = buckets.get(month);
+        bucket.remove(subscriptionId);
+        if (bucket.isEmpty()) {
+            buckets.remove(month);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the month a subscription's next delivery is due.
+     *
+     * @param subscriptionId The ID of the subscription to look up
+     * @return the month, or {@code null} if the subscription is not scheduled
+     */
+    public synchronized YearMonth getNextDelivery(String subscriptionId) {
+        return subscriptionId == null ? null : scheduledMonths.get(subscriptionId);
+    }
+
+    /**
+     * Returns the subscriptions with a delivery due in the given month, without dispatching them.
+     * <p>
+     * Throws {@code IllegalArgumentException} if the month is null.
+     *
+     * @param month The month to look up
+     * @return the subscriptions due that month, or an empty list if there are none
+     */
+    public synchronized List<Subscription> getDueSubscriptions(YearMonth month) {
+        if (month == null) {
+            throw new IllegalArgumentException("A month must be provided.");
+        }
+
+        Map<String, Subscription> due = buckets.get(month);
+        if (due == null) {
+            return Collections.emptyList();
+        }
+
+        return new ArrayList<>(due.values());
+    }
+
+    /**
+     * Returns the subscriptions with a delivery due in the given period, without dispatching them.
+     * <p>
+     * Throws {@code IllegalArgumentException} if either month is null, or if {@code from} is after {@code to}.
+     *
+     * @param from The first month of the period
+     * @param to   The last month of the period (inclusive)
+     * @return the subscriptions due in the period, ordered by month
+     */
+    public synchronized List<Subscription> getDueSubscriptions(YearMonth from, YearMonth to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("The first and last months of the period must be provided.");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException(String.format("Period starts after it ends: %s to %s", from, to));
+        }
+
+        List<Subscription> due = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            Map<String, Subscription> bucket = buckets.get(month);
+            if (bucket != null) {
+                due.addAll(bucket.values());
+            }
+        }
+
+        return due;
+    }
+
+    /**
+     * Dispatches the deliveries due in the given month. Each dispatched subscription is rescheduled for its next
+     * delivery, {@code frequency} months later.
+     * <p>
+     * Throws {@code IllegalArgumentException} if the month is null.
+     *
+     * @param month The month to dispatch
+     * @return the subscriptions that were due that month, or an empty list if there were none
+     */
+    public synchronized List<Subscription> dispatch(YearMonth month) {
+        if (month == null) {
+            throw new IllegalArgumentException("A month must be provided.");
+        }
+
+        Map<String, Subscription> due = buckets.remove(month);
+        if (due == null) {
+            return Collections.emptyList();
+        }
+
+        for (Subscription subscription : due.values()) {
+            add(subscription, month.plusMonths(subscription.getFrequency()));
+        }
+
+        return new ArrayList<>(due.values());
+    }
+
+    /**
+     * Returns how many deliveries are currently scheduled.
+     *
+     * @return the number of scheduled deliveries
+     */
+    public synchronized int size() {
+        return scheduledMonths.size();
+    }
+
+    private void add(Subscription subscription, YearMonth month) {
+        buckets.computeIfAbsent(month, bucket -> new LinkedHashMap<>()).put(subscription.getId(), subscription);
+        scheduledMonths.put(subscription.getId(), month);
+    }
+}
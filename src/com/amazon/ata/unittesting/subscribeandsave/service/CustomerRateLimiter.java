@@ -0,0 +1,127 @@
+package com.amazon.ata.unittesting.subscribeandsave.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, per-customer token bucket rate limiter. Each customer may make up to {@code capacity} calls in a
+ * burst, and earns one call back every {@code refillInterval}.
+ * <p>
+ * Each bucket is a single {@code AtomicLong} holding the time at which the bucket will be full again (the generic
+ * cell rate algorithm), so acquiring a token is one compare-and-set with no locking and no allocation once the
+ * customer's bucket exists. Buckets that have refilled completely carry no state worth keeping, and are swept out
+ * of the map once per sweep interval. A sweep is spread over the calls that follow it coming due: each call checks
+ * at most {@code SWEEP_BATCH_SIZE} buckets, and a call that finds another thread sweeping skips it, so no call pays
+ * for a pass over every customer.
+ */
+public class CustomerRateLimiter {
+
+    private static final int SWEEP_BATCH_SIZE = 64;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long refillIntervalNanos;
+    private final long burstNanos;
+    private final long sweepIntervalNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextSweepNanos;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    // the sweep in progress, or null between sweeps; only used by the thread that set sweeping
+    private Iterator<AtomicLong> sweepPosition;
+
+    /**
+     * Creates a rate limiter.
+     *
+     * @param capacity       The maximum number of calls a customer can make in a burst
+     * @param refillInterval How long it takes a customer to earn back one call
+     * @param sweepInterval  How often to drop the buckets of idle customers. Must be positive.
+     */
+    public CustomerRateLimiter(int capacity, Duration refillInterval, Duration sweepInterval) {
+        this(capacity, refillInterval, sweepInterval, System::nanoTime);
+    }
+
+    CustomerRateLimiter(int capacity, Duration refillInterval, Duration sweepInterval, LongSupplier nanoClock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Rate limiter capacity must be at least 1. Provided: " + capacity);
+        }
+        if (refillInterval.isNegative() || refillInterval.isZero() || sweepInterval.isNegative() ||
+            sweepInterval.isZero()) {
+            throw new IllegalArgumentException("Rate limiter intervals must be positive.");
+        }
+
+        this.refillIntervalNanos = refillInterval.toNanos();
+        this.burstNanos = refillIntervalNanos * capacity;
+        this.sweepIntervalNanos = sweepInterval.toNanos();
+        this.nanoClock = nanoClock;
+        this.nextSweepNanos = new AtomicLong(nanoClock.getAsLong() + sweepIntervalNanos);
+    }
+
+    /**
+     * Takes a token from the customer's bucket, if one is available.
+     *
+     * @param customerId The customer making the call
+     * @return true if the call is allowed, false if the customer is over the limit
+     */
+    public boolean tryAcquire(String customerId) {
+        long now = nanoClock.getAsLong();
+        sweepIfDue(now);
+
+        AtomicLong bucket = buckets.get(customerId);
+        if (bucket == null) {
+            AtomicLong newBucket = new AtomicLong(now);
+            bucket = buckets.putIfAbsent(customerId, newBucket);
+            if (bucket == null) {
+                bucket = newBucket;
+            }
+        }
+
+        while (true) {
+            long fullAt = bucket.get();
+            long newFullAt = Math.max(fullAt, now) + refillIntervalNanos;
+            if (newFullAt - now > burstNanos) {
+                return false;
+            }
+            if (bucket.compareAndSet(fullAt, newFullAt)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns how many customers currently have a bucket.
+     *
+     * @return the number of tracked customers
+     */
+    public int getTrackedCustomerCount() {
+        return buckets.size();
+    }
+
+    private void sweepIfDue(long now) {
+        if (now - nextSweepNanos.get() < 0 || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            if (sweepPosition == null) {
+                sweepPosition = buckets.values().iterator();
+            }
+            // A call racing with removal may land in a bucket that is being dropped; the customer then starts
+            // again from a full bucket, which costs at most one extra token.
+            for (int i = 0; i < SWEEP_BATCH_SIZE && sweepPosition.hasNext(); i++) {
+                if (sweepPosition.next().get() - now <= 0) {
+                    sweepPosition.remove();
+                }
+            }
+            if (!sweepPosition.hasNext()) {
+                sweepPosition = null;
+                nextSweepNanos.set(now + sweepIntervalNanos);
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.amazon.ata.unittesting.subscribeandsave.service;
+
+import com.amazon.ata.unittesting.subscribeandsave.types.SubscribeResult;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, time-expiring cache of subscribe results keyed by a client-supplied idempotency key.
+ * <p>
+ * The first call for a key does the work; a call for a key whose work is still in flight waits for that result
+ * instead of repeating it. Successful results are kept until they expire or are evicted, so retries get the original
+ * {@code Subscription} back. Rejections and failures are not kept, so a corrected retry can succeed.
+ */
+public class IdempotencyCache {
+
+    private final ConcurrentMap<String, CompletableFuture<SubscribeResult>> results;
+
+    /**
+     * Creates an idempotency cache.
+     *
+     * @param maximumSize      The maximum number of keys to remember
+     * @param expireAfterWrite How long to remember a key after its result was recorded
+     */
+    public IdempotencyCache(long maximumSize, Duration expireAfterWrite) {
+        Cache<String, CompletableFuture<SubscribeResult>> cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .build();
+        this.results = cache.asMap();
+    }
+
+    /**
+     * Returns the result recorded for the key, waiting for it if it is still in flight, or computes and records
+     * it if the key is new.
+     *
+     * @param idempotencyKey The client-supplied key identifying the request
+     * @param work           Computes the result for a new key
+     * @return the result for the key
+     */
+    public SubscribeResult getOrCompute(String idempotencyKey, Supplier<SubscribeResult> work) {
+        CompletableFuture<SubscribeResult> newResult = new CompletableFuture<>();
+        CompletableFuture<SubscribeResult> existingResult = results.putIfAbsent(idempotencyKey, newResult);
+        if (existingResult != null) {
+            return await(existingResult);
+        }
+
+        try {
+            SubscribeResult result = work.get();
+            if (!result.isSuccessful()) {
+                results.remove(idempotencyKey, newResult);
+            }
+            newResult.complete(result);
+
+            return result;
+        } catch (RuntimeException e) {
+            results.remove(idempotencyKey, newResult);
+            newResult.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private SubscribeResult await(CompletableFuture<SubscribeResult> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
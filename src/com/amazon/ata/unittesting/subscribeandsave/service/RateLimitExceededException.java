@@ -0,0 +1,18 @@
+package com.amazon.ata.unittesting.subscribeandsave.service;
+
+/**
+ * Exception thrown when a customer has made more subscribe calls than their rate limit allows.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 5713032409276455806L;
+
+    /**
+     * Creates a {@code RateLimitExceededException} with specified message.
+     *
+     * @param message The error message
+     */
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -2,21 +2,54 @@ package com.amazon.ata.unittesting.subscribeandsave.service;
 
 import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonIdentityService;
 import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonProductService;
-import com.amazon.ata.resources.debugging.classroom.dependencies.Product;
+import com.amazon.ata.resources.debugging.classroom.dependencies.Eligibility;
+import com.amazon.ata.unittesting.subscribeandsave.dao.StorageException;
 import com.amazon.ata.unittesting.subscribeandsave.dao.SubscriptionDAO;
+import com.amazon.ata.unittesting.subscribeandsave.metrics.Operation;
+import com.amazon.ata.unittesting.subscribeandsave.metrics.SubscriptionMetrics;
+import com.amazon.ata.unittesting.subscribeandsave.schedule.DeliverySchedule;
+import com.amazon.ata.unittesting.subscribeandsave.types.RejectionReason;
+import com.amazon.ata.unittesting.subscribeandsave.types.SubscribeRequest;
+import com.amazon.ata.unittesting.subscribeandsave.types.SubscribeResult;
 import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
 /**
- * Subscribe and service API. Currently supports creating subscriptions and fetching them. Subscriptions can
- * only be made for valid amazon products by valid amazon customers. Subscriptions are persisted by the SubscriptionDAO.
+ * Subscribe and service API. Currently supports creating subscriptions and fetching them, either by ID or by
+ * customer. Subscriptions can only be made for valid amazon products by valid amazon customers. Subscriptions are
+ * persisted by the SubscriptionDAO.
  */
 public class SubscriptionService {
 
     private AmazonIdentityService identityService;
     private AmazonProductService productService;
     private SubscriptionDAO subscriptionDAO;
+    private ExecutorService validationExecutor;
+    private long validationTimeoutNanos;
+    private CustomerRateLimiter rateLimiter;
+    private IdempotencyCache idempotencyCache;
+    private SubscriptionMetrics metrics;
+    private DeliverySchedule deliverySchedule;
+    private Clock clock;
 
     /**
      * Creates new subscription service instance with the given dependencies.
@@ -31,6 +64,17 @@ public class SubscriptionService {
         this.identityService = identityService;
         this.subscriptionDAO = subscriptionDAO;
         this.productService = productService;
+        this.metrics = SubscriptionMetrics.getDefault();
+    }
+
+    /**
+     * Returns a new SubscriptionService.Builder object for constructing a SubscriptionService with optional
+     * features enabled.
+     *
+     * @return new builder ready for constructing a SubscriptionService
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
@@ -39,6 +83,15 @@ public class SubscriptionService {
      * <p>
      * Throws {@code IllegalArgumentException} if customer ID is blank/invalid, ASIN is blank/invalid, ASIN
      * is unsubscribable, or if frequency is invalid (less than 1 or greater than 6).
+     * <p>
+     * Throws {@code StorageException} if the customer is already subscribed to the ASIN.
+     * <p>
+     * Throws {@code RateLimitExceededException} if the service was built with a rate limiter and the customer has
+     * exceeded it.
+     * <p>
+     * If the service was built with a validation executor, the customer and product checks run concurrently and
+     * the first one to fail cancels the other. Throws {@code IllegalStateException} if they do not both complete
+     * within the validation timeout.
      *
      * @param customerId The customer's ID
      * @param asin       The ASIN of the product to subscribe customer to
@@ -46,43 +99,200 @@ public class SubscriptionService {
      * @return the new {@code Subscription} if successful, {@code null} otherwise
      */
     public Subscription subscribe(String customerId, String asin, int frequency) {
-        if (StringUtils.isBlank(customerId) || StringUtils.isBlank(asin)) {
-            throw new IllegalArgumentException(
-                String.format(
-                    "Invalid inputs. A Customer ID and ASIN must be provided. Provided: {Customer ID: %s, ASIN: %s}",
-                    customerId,
-                    asin)
-            );
+        SubscribeResult result = trySubscribe(customerId, asin, frequency);
+
+        if (!result.isSuccessful()) {
+            throw rejectionException(result);
         }
 
-        if (frequency < 1 || frequency > 6) {
-            throw new IllegalArgumentException(
-                String.format(
-                    "Invalid frequency value. Please provide how often (in months) the " +
-                        "subscription should occur - between 1 and 6. Provided: {Frequency: %d}",
-                    frequency));
+        return result.getSubscription();
+    }
+
+    /**
+     * Creates a new subscription like {@code subscribe(customerId, asin, frequency)}, but safe to retry.
+     * <p>
+     * If the service was built with an idempotency cache, a repeated call with the same idempotency key returns
+     * the {@code Subscription} created by the first call instead of creating it again, and a call made while the
+     * first is still in flight waits for its result. Throws {@code IllegalArgumentException} if the key was already
+     * used for a different customer, ASIN or frequency. Without an idempotency cache the key is ignored.
+     *
+     * @param customerId     The customer's ID
+     * @param asin           The ASIN of the product to subscribe customer to
+     * @param frequency      The frequency of delivery (delivery every N months)
+     * @param idempotencyKey Client-chosen key identifying this request across retries; may be null
+     * @return the new {@code Subscription} if successful, {@code null} otherwise
+     */
+    public Subscription subscribe(String customerId, String asin, int frequency, String idempotencyKey) {
+        SubscribeResult result = trySubscribe(customerId, asin, frequency, idempotencyKey);
+
+        if (!result.isSuccessful()) {
+            throw rejectionException(result);
         }
 
-        if (!identityService.validateCustomer(customerId)) {
-            throw new IllegalArgumentException(
-                String.format("Unable to create subscription for customerId: %s. Unknown customer.", customerId)
-            );
+        return result.getSubscription();
+    }
+
+    /**
+     * Attempts to create a new subscription for given customer and ASIN for the given frequency (given in months
+     * between deliveries), reporting rejections as a result rather than an exception. Performs the same checks as
+     * {@code subscribe()}.
+     * <p>
+     * Throws {@code IllegalStateException} if validation does not complete within the validation timeout, and
+     * {@code StorageException} if the subscription cannot be written.
+     *
+     * @param customerId The customer's ID
+     * @param asin       The ASIN of the product to subscribe customer to
+     * @param frequency  The frequency of delivery (delivery every N months)
+     * @return a successful {@code SubscribeResult} holding the new {@code Subscription}, or a rejected one holding
+     *         the {@code RejectionReason}
+     */
+    public SubscribeResult trySubscribe(String customerId, String asin, int frequency) {
+        long startNanos = System.nanoTime();
+        try {
+            SubscribeRequest request = SubscribeRequest.builder()
+                                                       .withCustomerId(customerId)
+                                                       .withAsin(asin)
+                                                       .withFrequency(frequency)
+                                                       .build();
+
+            RejectionReason rejectionReason = checkInputs(customerId, asin, frequency);
+            if (rejectionReason == null) {
+                rejectionReason = checkRateLimit(customerId);
+            }
+            if (rejectionReason == null) {
+                rejectionReason = validationExecutor == null ?
+                    checkCustomerAndProduct(customerId, asin,
+                                            identityService::validateCustomer,
+                                            productService::checkEligibility) :
+                    checkCustomerAndProductConcurrently(customerId, asin);
+            }
+            if (rejectionReason != null) {
+                return rejected(request, rejectionReason);
+            }
+
+            Subscription subscription = subscriptionDAO.createSubscriptionIfAbsent(customerId, asin, frequency);
+            if (subscription == null) {
+                return rejected(request, RejectionReason.DUPLICATE);
+            }
+            scheduleFirstDelivery(subscription);
+
+            return SubscribeResult.success(request, subscription);
+        } finally {
+            metrics.recordLatency(Operation.SUBSCRIBE, System.nanoTime() - startNanos);
         }
+    }
 
-        Product product = productService.getProductByAsin(asin);
-        if (product == null) {
-            throw new IllegalArgumentException(
-                String.format("Unable to create subscription for ASIN: %s. Unrecognized ASIN.", asin)
-            );
+    /**
+     * Attempts to create a new subscription like {@code trySubscribe(customerId, asin, frequency)}, but safe to
+     * retry. See {@code subscribe(customerId, asin, frequency, idempotencyKey)} for how the key is used; a key
+     * reused for a different request is rejected as {@code IDEMPOTENCY_KEY_REUSED}.
+     *
+     * @param customerId     The customer's ID
+     * @param asin           The ASIN of the product to subscribe customer to
+     * @param frequency      The frequency of delivery (delivery every N months)
+     * @param idempotencyKey Client-chosen key identifying this request across retries; may be null
+     * @return a successful {@code SubscribeResult} holding the new {@code Subscription}, or a rejected one holding
+     *         the {@code RejectionReason}
+     */
+    public SubscribeResult trySubscribe(String customerId, String asin, int frequency, String idempotencyKey) {
+        if (idempotencyCache == null || StringUtils.isBlank(idempotencyKey)) {
+            return trySubscribe(customerId, asin, frequency);
+        }
+
+        SubscribeResult result =
+            idempotencyCache.getOrCompute(idempotencyKey, () -> trySubscribe(customerId, asin, frequency));
+
+        SubscribeRequest original = result.getRequest();
+        if (!Objects.equals(original.getCustomerId(), customerId) || !Objects.equals(original.getAsin(), asin) ||
+            original.getFrequency() != frequency) {
+            return rejected(SubscribeRequest.builder()
+                                            .withCustomerId(customerId)
+                                            .withAsin(asin)
+                                            .withFrequency(frequency)
+                                            .build(),
+                            RejectionReason.IDEMPOTENCY_KEY_REUSED);
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates subscriptions for a batch of subscribe requests. Each distinct customer ID and ASIN in the batch is
+     * validated only once, and all accepted requests are written to storage together.
+     * <p>
+     * A request that fails validation, or that would duplicate an existing subscription, does not stop the rest of
+     * the batch; its result carries the {@code RejectionReason} instead.
+     * <p>
+     * Throws {@code IllegalArgumentException} if the list of requests is null.
+     *
+     * @param requests The subscribe requests to process
+     * @return one {@code SubscribeResult} per request, in the same order as the requests
+     */
+    public List<SubscribeResult> subscribeAll(List<SubscribeRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("A list of subscribe requests must be provided.");
+        }
+
+        Map<String, Boolean> validatedCustomers = new HashMap<>();
+        Map<String, Eligibility> checkedProducts = new HashMap<>();
+        Predicate<String> customerValidator =
+            customerId -> validatedCustomers.computeIfAbsent(customerId, identityService::validateCustomer);
+        Function<String, Eligibility> productChecker =
+            asin -> checkedProducts.computeIfAbsent(asin, productService::checkEligibility);
+
+        SubscribeResult[] results = new SubscribeResult[requests.size()];
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        List<SubscribeRequest> acceptedRequests = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            SubscribeRequest request = requests.get(i);
+            if (request == null) {
+                results[i] = rejected(null, RejectionReason.BLANK_INPUT);
+                continue;
+            }
+
+            RejectionReason rejectionReason =
+                checkInputs(request.getCustomerId(), request.getAsin(), request.getFrequency());
+            if (rejectionReason == null) {
+                rejectionReason = checkRateLimit(request.getCustomerId());
+            }
+            if (rejectionReason == null) {
+                rejectionReason = checkCustomerAndProduct(request.getCustomerId(), request.getAsin(),
+                                                          customerValidator, productChecker);
+            }
+            if (rejectionReason != null) {
+                results[i] = rejected(request, rejectionReason);
+                continue;
+            }
+
+            acceptedIndexes.add(i);
+            acceptedRequests.add(request);
         }
 
-        if (!product.isSNS()) {
-            throw new IllegalArgumentException(
-                String.format("Cannot create a subscription for an unsubscribable ASIN: %s", asin)
-            );
+        if (!acceptedRequests.isEmpty()) {
+            List<Subscription> subscriptions = subscriptionDAO.createSubscriptions(acceptedRequests);
+
+            for (int i = 0; i < acceptedRequests.size(); i++) {
+                SubscribeRequest request = acceptedRequests.get(i);
+                Subscription subscription = subscriptions.get(i);
+
+                results[acceptedIndexes.get(i)] = subscription != null ?
+                    SubscribeResult.success(request, subscription) :
+                    rejected(request, RejectionReason.DUPLICATE);
+                if (subscription != null) {
+                    scheduleFirstDelivery(subscription);
+                }
+            }
         }
 
-        return subscriptionDAO.createSubscription(customerId, asin, frequency);
+        return Arrays.asList(results);
+    }
+
+    // the first delivery ships in the month the subscription is made, then every frequency months after
+    private void scheduleFirstDelivery(Subscription subscription) {
+        if (deliverySchedule != null) {
+            deliverySchedule.schedule(subscription, YearMonth.now(clock));
+        }
     }
 
     /**
@@ -92,10 +302,279 @@ public class SubscriptionService {
      * @return the {@code Subscription} if one is found, {@code null} otherwise
      */
     public Subscription getSubscription(String subscriptionId) {
-        if (StringUtils.isBlank(subscriptionId)) {
-            throw new IllegalArgumentException("A subscriptionId must be provided.");
+        long startNanos = System.nanoTime();
+        try {
+            if (StringUtils.isBlank(subscriptionId)) {
+                throw new IllegalArgumentException("A subscriptionId must be provided.");
+            }
+
+            return subscriptionDAO.getSubscription(subscriptionId);
+        } finally {
+            metrics.recordLatency(Operation.GET_SUBSCRIPTION, System.nanoTime() - startNanos);
         }
+    }
 
-        return subscriptionDAO.getSubscription(subscriptionId);
+    /**
+     * Returns all of the given customer's subscriptions.
+     *
+     * @param customerId The ID of the customer whose subscriptions to fetch
+     * @return the customer's {@code Subscription}s, or an empty list if the customer has none
+     */
+    public List<Subscription> getSubscriptionsForCustomer(String customerId) {
+        if (StringUtils.isBlank(customerId)) {
+            throw new IllegalArgumentException("A customerId must be provided.");
+        }
+
+        return subscriptionDAO.getSubscriptionsForCustomer(customerId);
+    }
+
+    private SubscribeResult rejected(SubscribeRequest request, RejectionReason rejectionReason) {
+        metrics.recordRejection(rejectionReason);
+        return SubscribeResult.rejected(request, rejectionReason);
+    }
+
+    private RuntimeException rejectionException(SubscribeResult result) {
+        if (result.getRejectionReason() == RejectionReason.DUPLICATE) {
+            return new StorageException(result.getErrorMessage());
+        }
+        if (result.getRejectionReason() == RejectionReason.RATE_LIMITED) {
+            return new RateLimitExceededException(result.getErrorMessage());
+        }
+
+        return new IllegalArgumentException(result.getErrorMessage());
+    }
+
+    private RejectionReason checkInputs(String customerId, String asin, int frequency) {
+        if (StringUtils.isBlank(customerId) || StringUtils.isBlank(asin)) {
+            return RejectionReason.BLANK_INPUT;
+        }
+
+        if (frequency < 1 || frequency > 6) {
+            return RejectionReason.BAD_FREQUENCY;
+        }
+
+        return null;
+    }
+
+    private RejectionReason checkRateLimit(String customerId) {
+        if (rateLimiter != null && !rateLimiter.tryAcquire(customerId)) {
+            return RejectionReason.RATE_LIMITED;
+        }
+
+        return null;
+    }
+
+    private RejectionReason checkCustomerAndProduct(String customerId, String asin,
+                                                    Predicate<String> customerValidator,
+                                                    Function<String, Eligibility> productChecker) {
+        RejectionReason rejectionReason = checkCustomer(customerId, customerValidator);
+        if (rejectionReason != null) {
+            return rejectionReason;
+        }
+
+        return checkProduct(asin, productChecker);
+    }
+
+    private RejectionReason checkCustomer(String customerId, Predicate<String> customerValidator) {
+        if (!customerValidator.test(customerId)) {
+            return RejectionReason.UNKNOWN_CUSTOMER;
+        }
+
+        return null;
+    }
+
+    private RejectionReason checkProduct(String asin, Function<String, Eligibility> productChecker) {
+        Eligibility eligibility = productChecker.apply(asin);
+        if (eligibility == Eligibility.UNKNOWN_ASIN) {
+            return RejectionReason.UNKNOWN_ASIN;
+        }
+
+        if (eligibility == Eligibility.NOT_SNS) {
+            return RejectionReason.NOT_SNS;
+        }
+
+        return null;
+    }
+
+    private RejectionReason checkCustomerAndProductConcurrently(String customerId, String asin) {
+        CompletionService<RejectionReason> validations = new ExecutorCompletionService<>(validationExecutor);
+        List<Future<RejectionReason>> pending = new ArrayList<>(2);
+        pending.add(validations.submit(() -> checkCustomer(customerId, identityService::validateCustomer)));
+        pending.add(validations.submit(() -> checkProduct(asin, productService::checkEligibility)));
+
+        long deadline = System.nanoTime() + validationTimeoutNanos;
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                Future<RejectionReason> completed =
+                    validations.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (completed == null) {
+                    throw new IllegalStateException(String.format(
+                        "Timed out validating subscription for customerId: %s, ASIN: %s", customerId, asin));
+                }
+
+                RejectionReason rejectionReason = completed.get();
+                if (rejectionReason != null) {
+                    return rejectionReason;
+                }
+            }
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Unable to validate subscription.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating subscription.", e);
+        } finally {
+            for (Future<RejectionReason> validation : pending) {
+                validation.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Builder for SubscriptionServices.
+     */
+    public static class Builder {
+        private AmazonIdentityService identityService;
+        private AmazonProductService productService;
+        private SubscriptionDAO subscriptionDAO;
+        private ExecutorService validationExecutor;
+        private Duration validationTimeout;
+        private CustomerRateLimiter rateLimiter;
+        private IdempotencyCache idempotencyCache;
+        private SubscriptionMetrics metrics;
+        private DeliverySchedule deliverySchedule;
+        private Clock clock;
+
+        /**
+         * With identity service builder.
+         *
+         * @param pIdentityService the identity service to use for validating customers
+         * @return the builder
+         */
+        public Builder withIdentityService(AmazonIdentityService pIdentityService) {
+            this.identityService = pIdentityService;
+            return this;
+        }
+
+        /**
+         * With product service builder.
+         *
+         * @param pProductService the product service to use for validating/getting products
+         * @return the builder
+         */
+        public Builder withProductService(AmazonProductService pProductService) {
+            this.productService = pProductService;
+            return this;
+        }
+
+        /**
+         * With subscription DAO builder.
+         *
+         * @param pSubscriptionDAO the subscription DAO for reading/writing subscriptions
+         * @return the builder
+         */
+        public Builder withSubscriptionDAO(SubscriptionDAO pSubscriptionDAO) {
+            this.subscriptionDAO = pSubscriptionDAO;
+            return this;
+        }
+
+        /**
+         * With validation executor builder. When set, {@code subscribe()} validates the customer and the product
+         * concurrently on this executor. The caller remains responsible for shutting the executor down.
+         *
+         * @param pValidationExecutor the executor to run customer and product validation on
+         * @param pValidationTimeout  how long to wait for both validations to complete; must be positive
+         * @return the builder
+         */
+        public Builder withValidationExecutor(ExecutorService pValidationExecutor, Duration pValidationTimeout) {
+            this.validationExecutor = pValidationExecutor;
+            this.validationTimeout = pValidationTimeout;
+            return this;
+        }
+
+        /**
+         * With rate limiter builder. When set, subscribe requests from a customer who is over the limit are rejected
+         * before any validation or storage work is done.
+         *
+         * @param pRateLimiter the per-customer rate limiter to admit subscribe requests with
+         * @return the builder
+         */
+        public Builder withRateLimiter(CustomerRateLimiter pRateLimiter) {
+            this.rateLimiter = pRateLimiter;
+            return this;
+        }
+
+        /**
+         * With idempotency cache builder. When set, subscribe calls made with an idempotency key return the
+         * original result when retried.
+         *
+         * @param pIdempotencyCache the cache of results for idempotency keys
+         * @return the builder
+         */
+        public Builder withIdempotencyCache(IdempotencyCache pIdempotencyCache) {
+            this.idempotencyCache = pIdempotencyCache;
+            return this;
+        }
+
+        /**
+         * With metrics builder. When not set, latencies and rejections are recorded to
+         * {@code SubscriptionMetrics.getDefault()}.
+         *
+         * @param pMetrics the metrics to record subscribe and lookup latencies and rejections to
+         * @return the builder
+         */
+        public Builder withMetrics(SubscriptionMetrics pMetrics) {
+            this.metrics = pMetrics;
+            return this;
+        }
+
+        /**
+         * With delivery schedule builder. When set, each subscription created is scheduled for its first delivery
+         * in the month it is created, as given by {@code pClock}.
+         *
+         * @param pDeliverySchedule the schedule to add new subscriptions to
+         * @param pClock            the clock that gives the current month
+         * @return the builder
+         */
+        public Builder withDeliverySchedule(DeliverySchedule pDeliverySchedule, Clock pClock) {
+            this.deliverySchedule = pDeliverySchedule;
+            this.clock = pClock;
+            return this;
+        }
+
+        /**
+         * Builds the SubscriptionService object from the current Builder state.
+         *
+         * @return constructed SubscriptionService object
+         */
+        public SubscriptionService build() {
+            if (validationExecutor != null && (validationTimeout == null || validationTimeout.isNegative() ||
+                validationTimeout.isZero())) {
+                throw new IllegalArgumentException("A positive validation timeout must be provided.");
+            }
+            if (deliverySchedule != null && clock == null) {
+                throw new IllegalArgumentException("A clock must be provided with a delivery schedule.");
+            }
+
+            SubscriptionService subscriptionService =
+                new SubscriptionService(identityService, subscriptionDAO, productService);
+
+            subscriptionService.validationExecutor = validationExecutor;
+            subscriptionService.rateLimiter = rateLimiter;
+            subscriptionService.idempotencyCache = idempotencyCache;
+            subscriptionService.deliverySchedule = deliverySchedule;
+            subscriptionService.clock = clock;
+            if (metrics != null) {
+                subscriptionService.metrics = metrics;
+            }
+            if (validationExecutor != null) {
+                subscriptionService.validationTimeoutNanos = validationTimeout.toNanos();
+            }
+
+            return subscriptionService;
+        }
     }
 }
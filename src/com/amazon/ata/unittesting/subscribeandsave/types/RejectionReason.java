@@ -0,0 +1,23 @@
+package com.amazon.ata.unittesting.subscribeandsave.types;
+
+/**
+ * Why a subscribe request was rejected.
+ */
+public enum RejectionReason {
+    /** The customer ID or ASIN was null, empty or whitespace. */
+    BLANK_INPUT,
+    /** The frequency was outside of the allowed 1 to 6 months. */
+    BAD_FREQUENCY,
+    /** The customer ID does not belong to a known customer. */
+    UNKNOWN_CUSTOMER,
+    /** The ASIN is not in the catalog. */
+    UNKNOWN_ASIN,
+    /** The product is not eligible for Subscribe and Save. */
+    NOT_SNS,
+    /** The customer is already subscribed to the ASIN. */
+    DUPLICATE,
+    /** The customer has made more subscribe calls than their rate limit allows. */
+    RATE_LIMITED,
+    /** The idempotency key was already used for a request with a different customer, ASIN or frequency. */
+    IDEMPOTENCY_KEY_REUSED
+}
@@ -0,0 +1,105 @@
+package com.amazon.ata.unittesting.subscribeandsave.types;
+
+/**
+ * A single request to subscribe a customer to an ASIN, as submitted in a batch to
+ * {@code SubscriptionService.subscribeAll()}.
+ */
+public class SubscribeRequest {
+
+    private String customerId;
+    private String asin;
+    // every x months
+    private int frequency;
+
+    private SubscribeRequest() {
+    }
+
+    /**
+     * Returns a new SubscribeRequest.Builder object for constructing a SubscribeRequest.
+     *
+     * @return new builder ready for constructing a SubscribeRequest
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getAsin() {
+        return asin;
+    }
+
+    public int getFrequency() {
+        return frequency;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{CustomerId: ").append(customerId);
+        sb.append(", Asin: ").append(asin);
+        sb.append(", Frequency: ").append(frequency);
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    /**
+     * Builder for SubscribeRequests.
+     */
+    public static class Builder {
+        private String customerId;
+        private String asin;
+        private int frequency;
+
+        /**
+         * With customer id builder.
+         *
+         * @param pCustomerId the customer id
+         * @return the builder
+         */
+        public Builder withCustomerId(String pCustomerId) {
+            this.customerId = pCustomerId;
+            return this;
+        }
+
+        /**
+         * With asin builder.
+         *
+         * @param pAsin the asin
+         * @return the builder
+         */
+        public Builder withAsin(String pAsin) {
+            this.asin = pAsin;
+            return this;
+        }
+
+        /**
+         * With frequency builder.
+         *
+         * @param pFrequency the frequency
+         * @return the builder
+         */
+        public Builder withFrequency(int pFrequency) {
+            this.frequency = pFrequency;
+            return this;
+        }
+
+        /**
+         * Builds the SubscribeRequest object from the current Builder state.
+         *
+         * @return constructed SubscribeRequest object
+         */
+        public SubscribeRequest build() {
+            SubscribeRequest request = new SubscribeRequest();
+
+            request.customerId = customerId;
+            request.asin = asin;
+            request.frequency = frequency;
+
+            return request;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.amazon.ata.unittesting.subscribeandsave.types;
+
+/**
+ * The outcome of a single subscribe request: either the newly created {@code Subscription}, or the reason the
+ * request was rejected. Rejections carry no exception; a human-readable message is only built when
+ * {@code getErrorMessage()} is called.
+ */
+public class SubscribeResult {
+
+    private final SubscribeRequest request;
+    private final Subscription subscription;
+    private final RejectionReason rejectionReason;
+
+    private SubscribeResult(SubscribeRequest request, Subscription subscription, RejectionReason rejectionReason) {
+        this.request = request;
+        this.subscription = subscription;
+        this.rejectionReason = rejectionReason;
+    }
+
+    /**
+     * Creates a successful result.
+     *
+     * @param request      The request that was processed
+     * @param subscription The {@code Subscription} that was created for the request
+     * @return the successful result
+     */
+    public static SubscribeResult success(SubscribeRequest request, Subscription subscription) {
+        return new SubscribeResult(request, subscription, null);
+    }
+
+    /**
+     * Creates a rejected result.
+     *
+     * @param request         The request that was processed
+     * @param rejectionReason Why the request was rejected
+     * @return the rejected result
+     */
+    public static SubscribeResult rejected(SubscribeRequest request, RejectionReason rejectionReason) {
+        return new SubscribeResult(request, null, rejectionReason);
+    }
+
+    public SubscribeRequest getRequest() {
+        return request;
+    }
+
+    public boolean isSuccessful() {
+        return rejectionReason == null;
+    }
+
+    /**
+     * Returns the created subscription.
+     *
+     * @return the {@code Subscription} if successful, {@code null} otherwise
+     */
+    public Subscription getSubscription() {
+        return subscription;
+    }
+
+    /**
+     * Returns why the request was rejected.
+     *
+     * @return the {@code RejectionReason} if unsuccessful, {@code null} otherwise
+     */
+    public RejectionReason getRejectionReason() {
+        return rejectionReason;
+    }
+
+    /**
+     * Builds a human-readable description of why the request was rejected. This is the same message
+     * {@code subscribe()} puts in the exception it throws.
+     *
+     * @return the error message if unsuccessful, {@code null} otherwise
+     */
+    public String getErrorMessage() {
+        if (rejectionReason == null) {
+            return null;
+        }
+
+        String customerId = request == null ? null : request.getCustomerId();
+        String asin = request == null ? null : request.getAsin();
+
+        switch (rejectionReason) {
+            case BLANK_INPUT:
+                return String.format(
+                    "Invalid inputs. A Customer ID and ASIN must be provided. Provided: {Customer ID: %s, ASIN: %s}",
+                    customerId,
+                    asin);
+            case BAD_FREQUENCY:
+                return String.format(
+                    "Invalid frequency value. Please provide how often (in months) the " +
+                        "subscription should occur - between 1 and 6. Provided: {Frequency: %d}",
+                    request.getFrequency());
+            case UNKNOWN_CUSTOMER:
+                return String.format("Unable to create subscription for customerId: %s. Unknown customer.",
+                                     customerId);
+            case UNKNOWN_ASIN:
+                return String.format("Unable to create subscription for ASIN: %s. Unrecognized ASIN.", asin);
+            case NOT_SNS:
+                return String.format("Cannot create a subscription for an unsubscribable ASIN: %s", asin);
+            case DUPLICATE:
+                return String.format(
+                    "Subscription already exists for customerId: %s, ASIN: %s. Please use updateSubscription()",
+                    customerId,
+                    asin);
+            case RATE_LIMITED:
+                return String.format("Too many subscribe requests for customerId: %s. Please retry later.",
+                                     customerId);
+            case IDEMPOTENCY_KEY_REUSED:
+                return String.format(
+                    "Idempotency key was already used for a different request. Provided: " +
+                        "{Customer ID: %s, ASIN: %s, Frequency: %d}",
+                    customerId,
+                    asin,
+                    request.getFrequency());
+            default:
+                return rejectionReason.toString();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{Request: ").append(request);
+        if (isSuccessful()) {
+            sb.append(", Subscription: ").append(subscription);
+        } else {
+            sb.append(", RejectionReason: ").append(rejectionReason);
+        }
+        sb.append("}");
+
+        return sb.toString();
+    }
+}
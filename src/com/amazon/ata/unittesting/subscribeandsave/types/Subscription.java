@@ -3,14 +3,16 @@ package com.amazon.ata.unittesting.subscribeandsave.types;
 /**
  * A customer's product subscription. A customer subscribes to receive a product with a certain frequency. The frequency
  * is tracked in months, every X months the product is sent to the customer.
+ * <p>
+ * Subscriptions are immutable, so a single instance can be shared between callers and threads without copying.
  */
-public class Subscription {
+public final class Subscription {
 
-    private String id;
-    private String customerId;
-    private String asin;
+    private final String id;
+    private final String customerId;
+    private final String asin;
     // every x months
-    private int frequency;
+    private final int frequency;
 
     /**
      * Copy construct a Subscription.
@@ -24,7 +26,11 @@ public class Subscription {
         this.frequency = other.getFrequency();
     }
 
-    private Subscription() {
+    private Subscription(Builder builder) {
+        this.id = builder.subscriptionId;
+        this.customerId = builder.customerId;
+        this.asin = builder.asin;
+        this.frequency = builder.frequency;
     }
 
     /**
@@ -40,8 +46,18 @@ public class Subscription {
         return id;
     }
 
-    public void setId(String id) {
-        this.id = id;
+    /**
+     * Returns a copy of this subscription with the given subscription ID.
+     *
+     * @param pSubscriptionId the subscription id
+     * @return the new {@code Subscription}
+     */
+    public Subscription withId(String pSubscriptionId) {
+        return builder().withSubscriptionId(pSubscriptionId)
+                        .withCustomerId(customerId)
+                        .withAsin(asin)
+                        .withFrequency(frequency)
+                        .build();
     }
 
     public String getCustomerId() {
@@ -127,14 +143,7 @@ public class Subscription {
          * @return constructed Order object
          */
         public Subscription build() {
-            Subscription subscription = new Subscription();
-
-            subscription.id = subscriptionId;
-            subscription.customerId = customerId;
-            subscription.asin = asin;
-            subscription.frequency = frequency;
-
-            return subscription;
+            return new Subscription(this);
         }
     }
 }
@@ -0,0 +1,151 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.amazon.ata.unittesting.subscribeandsave.App;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AmazonProductServiceTest {
+
+    private static final File CATALOG_FILE = Paths.get(App.DATA_FILE_ROOT_PATH, "catalog.json").toFile();
+
+    private File catalogFile;
+    private File snapshotFile;
+
+    @BeforeEach
+    private void createCatalogFiles() throws IOException {
+        catalogFile = Files.createTempFile("catalog", ".json").toFile();
+        FileUtils.writeStringToFile(catalogFile,
+                                    "{ \"asin\": \"B000000003\", \"vendor\": \"Acme\", \"listPrice\": 1.99 }\n" +
+                                        "{ \"asin\": \"B000000001\", \"vendor\": \"Acme\", \"listPrice\": 2.5 }\n" +
+                                        "{ \"asin\": \"B000000002\", \"vendor\": \"Other\", \"listPrice\": 3.005 }\n" +
+                                        "{ \"asin\": \"B000000004\", \"vendor\": \"Acme\", \"listPrice\": 10 }\n" +
+                                        "{ \"asin\": \"B000000005\", \"isSNS\": true }\n",
+                                    Charset.defaultCharset());
+        snapshotFile = Files.createTempFile("catalog", ".snapshot").toFile();
+        ProductSnapshotFile.compile(catalogFile, snapshotFile);
+    }
+
+    @AfterEach
+    private void deleteCatalogFiles() {
+        FileUtils.deleteQuietly(catalogFile);
+        FileUtils.deleteQuietly(snapshotFile);
+    }
+
+    @Test
+    void getProductsByAsins_knownAndUnknownAsins_knownProductsReturned() {
+        // GIVEN - a product service over the catalogue file
+        AmazonProductService productService = new AmazonProductService(CATALOG_FILE);
+
+        // WHEN - fetch two known ASINs and an unknown one in one call
+        Map<String, Product> products =
+            productService.getProductsByAsins(Arrays.asList("B00006IEJB", "B07R5QD598", "B000000000"));
+
+        // THEN - only the known products are returned, keyed by ASIN
+        assertEquals(2, products.size(), "Expected only known ASINs to be returned");
+        assertEquals("Sharpie", products.get("B00006IEJB").getVendor(), "Expected product to be keyed by its ASIN");
+        assertEquals("Beats", products.get("B07R5QD598").getVendor(), "Expected product to be keyed by its ASIN");
+        assertFalse(products.containsKey("B000000000"), "Expected unknown ASIN to be left out");
+    }
+
+    @Test
+    void getProductsByAsins_blankAsin_exceptionOccurs() {
+        // GIVEN - a product service over the catalogue file
+        AmazonProductService productService = new AmazonProductService(CATALOG_FILE);
+
+        // WHEN & THEN - a blank ASIN in the batch is rejected
+        assertThrows(IllegalArgumentException.class,
+            () -> productService.getProductsByAsins(Arrays.asList("B00006IEJB", " ")),
+            "Expected a blank ASIN to be rejected");
+    }
+
+    @Test
+    void getListPricesCents_eachCatalogMode_pricesInCents() {
+        for (CatalogMode mode : CatalogMode.values()) {
+            // GIVEN - a product service in each mode
+            AmazonProductService productService =
+                new AmazonProductService(mode == CatalogMode.SNAPSHOT ? snapshotFile : catalogFile, mode);
+
+            // WHEN - fetch prices in cents for priced, unpriced and unknown ASINs
+            long[] listPricesCents = productService.getListPricesCents(
+                Arrays.asList("B000000003", "B000000001", "B000000002", "B000000004", "B000000005", "B000000000"));
+
+            // THEN - prices are whole cents, rounded half up, and missing prices are NONE
+            assertArrayEquals(new long[] {199, 250, 301, 1000, PriceCents.NONE, PriceCents.NONE}, listPricesCents,
+                              "Expected list prices in cents in " + mode + " mode");
+        }
+    }
+
+    @Test
+    void sumListPriceCents_eachCatalogMode_pricedProductsTotalled() {
+        for (CatalogMode mode : CatalogMode.values()) {
+            // GIVEN - a product service in each mode
+            AmazonProductService productService =
+                new AmazonProductService(mode == CatalogMode.SNAPSHOT ? snapshotFile : catalogFile, mode);
+
+            // WHEN - total a basket with a repeated ASIN and an unpriced one, and a vendor's products
+            long basketCents =
+                productService.sumListPriceCents(Arrays.asList("B000000003", "B000000003", "B000000005"));
+            long vendorCents = productService.sumListPriceCentsByVendor("Acme");
+
+            // THEN - every priced occurrence is counted
+            assertEquals(398, basketCents, "Expected repeated ASIN counted twice in " + mode + " mode");
+            assertEquals(1449, vendorCents, "Expected every Acme product totalled in " + mode + " mode");
+        }
+    }
+
+    @Test
+    void getProductsByVendor_eachCatalogMode_vendorProductsReturned() {
+        for (CatalogMode mode : CatalogMode.values()) {
+            // GIVEN - a product service in each mode over a catalogue with three products from one vendor
+            AmazonProductService productService =
+                new AmazonProductService(mode == CatalogMode.SNAPSHOT ? snapshotFile : catalogFile, mode);
+
+            // WHEN - fetch the vendor's products
+            List<Product> products = productService.getProductsByVendor("Acme");
+
+            // THEN - exactly that vendor's products are returned
+            Set<String> asins = products.stream().map(Product::getAsin).collect(Collectors.toCollection(TreeSet::new));
+            assertEquals(new TreeSet<>(Arrays.asList("B000000001", "B000000003", "B000000004")), asins,
+                         "Expected every Acme product in " + mode + " mode");
+            assertTrue(products.stream().allMatch(product -> "Acme".equals(product.getVendor())),
+                       "Expected only Acme products in " + mode + " mode");
+            assertTrue(productService.getProductsByVendor("Unknown").isEmpty(),
+                       "Expected no products for an unknown vendor in " + mode + " mode");
+        }
+    }
+
+    @Test
+    void getProductByAsin_afterClose_exceptionOccurs() {
+        for (CatalogMode mode : CatalogMode.values()) {
+            // GIVEN - a product service in each mode, closed
+            AmazonProductService productService =
+                new AmazonProductService(mode == CatalogMode.SNAPSHOT ? snapshotFile : catalogFile, mode);
+            productService.close();
+
+            // WHEN & THEN - a lookup fails rather than waiting for a catalogue
+            assertThrows(IllegalStateException.class, () -> productService.getProductByAsin("B000000001"),
+                         "Expected a lookup after close to fail in " + mode + " mode");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomerIdFileLoaderTest {
+
+    private static final int CUSTOMER_COUNT = 200_000;
+
+    private File customerIdFile;
+
+    @BeforeEach
+    private void createCustomerIdFile() throws IOException {
+        customerIdFile = Files.createTempFile("customers", ".txt").toFile();
+    }
+
+    @AfterEach
+    private void deleteCustomerIdFile() {
+        FileUtils.deleteQuietly(customerIdFile);
+    }
+
+    @Test
+    void load_fileSplitIntoRanges_everyLineLoadedOnce() throws IOException {
+        // GIVEN - a customer file several megabytes long, so it is split into many ranges
+        StringBuilder customerIds = new StringBuilder();
+        for (int i = 0; i < CUSTOMER_COUNT; i++) {
+            customerIds.append(customerId(i)).append('\n');
+        }
+        FileUtils.writeStringToFile(customerIdFile, customerIds.toString(), Charset.defaultCharset());
+
+        // WHEN - load it on 4 threads
+        ShardedCustomerIdSet loaded = CustomerIdFileLoader.load(customerIdFile, 4);
+
+        // THEN - every customer is loaded, none twice and none cut at a range boundary
+        assertEquals(CUSTOMER_COUNT, loaded.size(), "Expected every line to be loaded exactly once");
+        for (int i = 0; i < CUSTOMER_COUNT; i++) {
+            assertTrue(loaded.contains(customerId(i)), "Expected customer " + i + " to be loaded");
+        }
+    }
+
+    @Test
+    void load_irregularLines_loadedLikeLineIterator() throws IOException {
+        // GIVEN - Windows line endings, an ID longer than the read buffer and no final line break
+        String longId = "amzn1.account." + StringUtils.repeat('A', 100_000);
+        FileUtils.writeStringToFile(customerIdFile,
+                                    customerId(1) + "\r\n" + longId + "\n" + customerId(2),
+                                    Charset.defaultCharset());
+
+        // WHEN - load it
+        ShardedCustomerIdSet loaded = CustomerIdFileLoader.load(customerIdFile, 4);
+
+        // THEN - each line is loaded as one ID
+        assertEquals(3, loaded.size(), "Expected one ID per line");
+        assertTrue(loaded.contains(customerId(1)), "Expected carriage return to be dropped from the ID");
+        assertTrue(loaded.contains(longId), "Expected ID longer than the read buffer to be loaded");
+        assertTrue(loaded.contains(customerId(2)), "Expected last line without a line break to be loaded");
+        assertFalse(loaded.contains(customerId(3)), "Expected customer not in the file not to be found");
+    }
+
+    @Test
+    void load_emptyFile_emptySet() throws IOException {
+        // GIVEN - an empty customer file
+
+        // WHEN - load it
+        ShardedCustomerIdSet loaded = CustomerIdFileLoader.load(customerIdFile, 4);
+
+        // THEN - no customers are loaded
+        assertEquals(0, loaded.size(), "Expected no customers to be loaded from an empty file");
+    }
+
+    private static String customerId(int i) {
+        return String.format("amzn1.account.AEZI3A%022d", i);
+    }
+}
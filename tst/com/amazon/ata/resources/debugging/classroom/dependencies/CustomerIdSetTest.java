@@ -0,0 +1,79 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomerIdSetTest {
+
+    private static final String CUSTOMER_ID = "amzn1.account.AEZI3A063427738YROOFT8WCXKDE";
+
+    @Test
+    void contains_addedCustomerId_returnsTrue() {
+        // GIVEN - a set holding one customer ID
+        CustomerIdSet customerIds = new CustomerIdSet(1);
+        customerIds.add(CUSTOMER_ID);
+
+        // WHEN & THEN - the ID is found, and a different one is not
+        assertTrue(customerIds.contains(CUSTOMER_ID), "Expected added customer ID to be found");
+        assertFalse(customerIds.contains("amzn1.account.AE12121212121212121212121212"),
+                    "Expected unknown customer ID not to be found");
+    }
+
+    @Test
+    void contains_sameIdWithoutPrefix_returnsFalse() {
+        // GIVEN - a set holding one prefixed customer ID
+        CustomerIdSet customerIds = new CustomerIdSet(1);
+        customerIds.add(CUSTOMER_ID);
+
+        // WHEN & THEN - the ID without its prefix is a different ID
+        assertFalse(customerIds.contains("AEZI3A063427738YROOFT8WCXKDE"),
+                    "Expected ID without the account prefix not to match the prefixed ID");
+    }
+
+    @Test
+    void add_duplicateCustomerId_returnsFalse() {
+        // GIVEN - a set holding one customer ID
+        CustomerIdSet customerIds = new CustomerIdSet(1);
+        customerIds.add(CUSTOMER_ID);
+
+        // WHEN - add it again
+        boolean added = customerIds.add(CUSTOMER_ID);
+
+        // THEN - it is not added twice
+        assertFalse(added, "Expected duplicate customer ID not to be added");
+        assertEquals(1, customerIds.size(), "Expected set to hold one customer ID");
+    }
+
+    @Test
+    void contains_nonAsciiCustomerId_returnsTrue() {
+        // GIVEN - a set holding an ID that cannot be stored as single bytes
+        CustomerIdSet customerIds = new CustomerIdSet(1);
+        String nonAsciiId = "amzn1.account.AEZI3A06342773\u00C9YROOFT8WCXKDE";
+        customerIds.add(nonAsciiId);
+
+        // WHEN & THEN - it is still found, and the ASCII ID it resembles is not
+        assertTrue(customerIds.contains(nonAsciiId), "Expected non-ASCII customer ID to be found");
+        assertFalse(customerIds.contains(CUSTOMER_ID), "Expected similar ASCII customer ID not to be found");
+    }
+
+    @Test
+    void add_moreThanExpectedSize_allCustomerIdsFound() {
+        // GIVEN - a set sized for far fewer IDs than are added
+        CustomerIdSet customerIds = new CustomerIdSet(4);
+        for (int i = 0; i < 10_000; i++) {
+            customerIds.add(String.format("amzn1.account.AEZI3A%022d", i));
+        }
+
+        // WHEN & THEN - every ID is still found
+        assertEquals(10_000, customerIds.size(), "Expected every added customer ID to be counted");
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(customerIds.contains(String.format("amzn1.account.AEZI3A%022d", i)),
+                       "Expected customer ID " + i + " to be found after the set grew");
+        }
+        assertFalse(customerIds.contains(String.format("amzn1.account.AEZI3A%022d", 10_000)),
+                    "Expected customer ID that was never added not to be found");
+    }
+}
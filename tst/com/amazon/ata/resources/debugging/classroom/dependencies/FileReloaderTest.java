@@ -0,0 +1,240 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class FileReloaderTest {
+
+    private static final String CUSTOMER_ID = "amzn1.account.AEZI3A063427738YROOFT8WCXKDE";
+    private static final String NEW_CUSTOMER_ID = "amzn1.account.AE12121212121212121212121212";
+
+    private File file;
+
+    @BeforeEach
+    private void createFile() throws IOException {
+        file = Files.createTempFile("reloaded", ".txt").toFile();
+        FileUtils.writeStringToFile(file, "first", Charset.defaultCharset());
+    }
+
+    @AfterEach
+    private void deleteFile() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    @Test
+    void reloadIfChanged_fileChanged_newStructureReturned() throws IOException {
+        // GIVEN - a structure loaded from the file
+        FileReloader<String> reloader = new FileReloader<>(file, this::readFile);
+
+        // WHEN - the file changes
+        FileUtils.writeStringToFile(file, "second version", Charset.defaultCharset());
+        boolean reloaded = reloader.reloadIfChanged();
+
+        // THEN - the new content is loaded
+        assertTrue(reloaded, "Expected a changed file to be reloaded");
+        assertEquals("second version", reloader.get(), "Expected the new structure to be returned");
+    }
+
+    @Test
+    void reloadIfChanged_fileUnchanged_notReloaded() throws IOException {
+        // GIVEN - a structure loaded from the file
+        FileReloader<String> reloader = new FileReloader<>(file, this::readFile);
+
+        // WHEN - check the unchanged file
+        boolean reloaded = reloader.reloadIfChanged();
+
+        // THEN - nothing is reloaded
+        assertFalse(reloaded, "Expected an unchanged file not to be reloaded");
+    }
+
+    @Test
+    void reloadIfChanged_loadFails_previousStructureKept() throws IOException {
+        // GIVEN - a loader that fails on anything but the first version
+        FileReloader<String> reloader = new FileReloader<>(file, changed -> {
+            String content = readFile(changed);
+            if (!content.equals("first")) {
+                throw new IOException("Unable to parse " + content);
+            }
+            return content;
+        });
+
+        // WHEN - the file changes to something that cannot be loaded
+        FileUtils.writeStringToFile(file, "half written", Charset.defaultCharset());
+        boolean reloaded = reloader.reloadIfChanged();
+
+        // THEN - the previous structure is still served
+        assertFalse(reloaded, "Expected a failed load not to count as a reload");
+        assertEquals("first", reloader.get(), "Expected the previous structure to be kept");
+    }
+
+    @Test
+    void validateCustomer_watchedFileGainsCustomer_newCustomerValidated() throws Exception {
+        // GIVEN - an identity service watching its customer file
+        FileUtils.writeStringToFile(file, CUSTOMER_ID + "\n", Charset.defaultCharset());
+        AmazonIdentityService identityService = new AmazonIdentityService(file);
+        identityService.startWatching(Duration.ofMillis(10));
+        try {
+            assertFalse(identityService.validateCustomer(NEW_CUSTOMER_ID), "Expected new customer to be unknown");
+
+            // WHEN - a customer is added to the file
+            FileUtils.writeStringToFile(file, NEW_CUSTOMER_ID + "\n", Charset.defaultCharset(), true);
+
+            // THEN - the new customer is validated once the file has been reloaded
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!identityService.validateCustomer(NEW_CUSTOMER_ID)) {
+                if (System.nanoTime() > deadline) {
+                    fail("Expected new customer to be validated after the customer file changed");
+                }
+                Thread.sleep(10);
+            }
+            // and existing customers are still valid
+            assertTrue(identityService.validateCustomer(CUSTOMER_ID), "Expected existing customer to stay valid");
+        } finally {
+            identityService.stopWatching();
+        }
+    }
+
+    @Test
+    void reloadIfChanged_lazyCatalogReloadedManyTimes_replacedCatalogsClosed() throws IOException {
+        // GIVEN - lazy catalogues loaded from the file, each one recorded
+        ObjectReader productReader = new ObjectMapper().readerFor(Product.class);
+        List<LazyProductCatalog> catalogs = new ArrayList<>();
+        FileUtils.writeStringToFile(file, product(0), Charset.defaultCharset());
+        FileReloader<LazyProductCatalog> reloader = new FileReloader<>(file, changed -> {
+            LazyProductCatalog catalog = LazyProductCatalog.index(changed, productReader, 10);
+            catalogs.add(catalog);
+            return catalog;
+        });
+
+        // WHEN - the file changes and is reloaded many times
+        for (int i = 1; i <= 20; i++) {
+            FileUtils.writeStringToFile(file, product(i), Charset.defaultCharset(), true);
+            assertTrue(reloader.reloadIfChanged(), "Expected a changed file to be reloaded");
+        }
+
+        // THEN - only the current catalogue keeps its file open
+        assertEquals(21, catalogs.size(), "Expected one catalogue per load");
+        for (int i = 0; i < 20; i++) {
+            assertFalse(catalogs.get(i).isOpen(), "Expected replaced catalogue " + i + " to be closed");
+        }
+        assertTrue(reloader.get().isOpen(), "Expected the current catalogue to stay open");
+        assertEquals(21, (int) reloader.read(LazyProductCatalog::size), "Expected the current catalogue to be served");
+        // and closing the reloader closes it too
+        reloader.close();
+        assertFalse(catalogs.get(20).isOpen(), "Expected the current catalogue to be closed with the reloader");
+    }
+
+    @Test
+    void read_reloadedDuringRead_replacedCatalogClosedAfterRead() throws IOException {
+        // GIVEN - a lazy catalogue loaded from the file
+        ObjectReader productReader = new ObjectMapper().readerFor(Product.class);
+        FileUtils.writeStringToFile(file, product(0), Charset.defaultCharset());
+        FileReloader<LazyProductCatalog> reloader =
+            new FileReloader<>(file, changed -> LazyProductCatalog.index(changed, productReader, 10));
+        LazyProductCatalog first = reloader.get();
+
+        // WHEN - the file is reloaded while a read is using the catalogue
+        String title = reloader.read(catalog -> {
+            try {
+                FileUtils.writeStringToFile(file, product(1), Charset.defaultCharset(), true);
+            } catch (IOException e) {
+                fail("Unable to change the catalogue file: " + e);
+            }
+            assertTrue(reloader.reloadIfChanged(), "Expected a changed file to be reloaded");
+            return catalog.getProduct(asin(0)).getTitle();
+        });
+
+        // THEN - the read completes against the catalogue it started with, which is closed afterwards
+        assertEquals("Product 0", title, "Expected the read to finish on the replaced catalogue");
+        assertFalse(first.isOpen(), "Expected the replaced catalogue to be closed once the read returned");
+        assertTrue(reloader.get().isOpen(), "Expected the new catalogue to stay open");
+        reloader.close();
+    }
+
+    @Test
+    void read_afterClose_exceptionOccurs() throws IOException {
+        // GIVEN - a lazy catalogue loaded from the file, and the reloader closed
+        ObjectReader productReader = new ObjectMapper().readerFor(Product.class);
+        FileUtils.writeStringToFile(file, product(0), Charset.defaultCharset());
+        FileReloader<LazyProductCatalog> reloader =
+            new FileReloader<>(file, changed -> LazyProductCatalog.index(changed, productReader, 10));
+        reloader.close();
+
+        // WHEN & THEN - reading fails rather than waiting for a catalogue, and nothing is reloaded
+        assertThrows(IllegalStateException.class, () -> reloader.read(LazyProductCatalog::size),
+                     "Expected a read after close to fail");
+        FileUtils.writeStringToFile(file, product(1), Charset.defaultCharset(), true);
+        assertFalse(reloader.reloadIfChanged(), "Expected a closed reloader not to reload");
+    }
+
+    @Test
+    void reloadIfChanged_sortedIdFileReloadedManyTimes_replacedMappingsClosed() throws IOException {
+        // GIVEN - sorted customer ID files mapped from the file, each one recorded
+        File customerIdFile = Files.createTempFile("customers", ".txt").toFile();
+        try {
+            FileUtils.writeStringToFile(customerIdFile, CUSTOMER_ID + "\n", Charset.defaultCharset());
+            SortedCustomerIdFile.compile(customerIdFile, file);
+            List<SortedCustomerIdFile> sortedIdFiles = new ArrayList<>();
+            FileReloader<CustomerIdLookup> reloader = new FileReloader<>(file, changed -> {
+                SortedCustomerIdFile sortedIds = SortedCustomerIdFile.open(changed);
+                sortedIdFiles.add(sortedIds);
+                return new TieredCustomerIdLookup(sortedIds, 0.01);
+            });
+
+            // WHEN - the file changes and is reloaded many times
+            for (int i = 1; i <= 20; i++) {
+                FileUtils.writeStringToFile(customerIdFile, customerId(i) + "\n", Charset.defaultCharset(), true);
+                SortedCustomerIdFile.compile(customerIdFile, file);
+                assertTrue(reloader.reloadIfChanged(), "Expected a changed file to be reloaded");
+            }
+
+            // THEN - only the current mapping is still open
+            assertEquals(21, sortedIdFiles.size(), "Expected one mapping per load");
+            for (int i = 0; i < 20; i++) {
+                assertFalse(sortedIdFiles.get(i).isOpen(), "Expected replaced mapping " + i + " to be closed");
+            }
+            assertTrue(sortedIdFiles.get(20).isOpen(), "Expected the current mapping to stay open");
+            assertTrue(reloader.read(lookup -> lookup.contains(customerId(20))),
+                       "Expected the current mapping to be served");
+            // and closing the reloader closes it too
+            reloader.close();
+            assertFalse(sortedIdFiles.get(20).isOpen(), "Expected the current mapping to be closed with the reloader");
+        } finally {
+            FileUtils.deleteQuietly(customerIdFile);
+        }
+    }
+
+    private static String customerId(int i) {
+        return String.format("amzn1.account.AE%026d", i);
+    }
+
+    private static String product(int i) {
+        return String.format("{ \"asin\": \"%s\", \"title\": \"Product %d\" }%n", asin(i), i);
+    }
+
+    private static String asin(int i) {
+        return String.format("B%09d", i);
+    }
+
+    private String readFile(File changed) throws IOException {
+        return FileUtils.readFileToString(changed, Charset.defaultCharset());
+    }
+}
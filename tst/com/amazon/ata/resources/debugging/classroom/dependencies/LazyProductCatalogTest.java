@@ -0,0 +1,133 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.amazon.ata.unittesting.subscribeandsave.App;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyProductCatalogTest {
+
+    private static final File CATALOG_FILE = Paths.get(App.DATA_FILE_ROOT_PATH, "catalog.json").toFile();
+
+    private ObjectReader productReader;
+    private File catalogFile;
+
+    @BeforeEach
+    private void setup() throws IOException {
+        productReader = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                                          .readerFor(Product.class);
+        catalogFile = Files.createTempFile("catalog", ".json").toFile();
+    }
+
+    @AfterEach
+    private void deleteCatalogFile() {
+        FileUtils.deleteQuietly(catalogFile);
+    }
+
+    @Test
+    void getProduct_catalogFile_sameProductsAsEagerCatalog() throws IOException {
+        // GIVEN - the catalogue file, indexed lazily and loaded eagerly
+        LazyProductCatalog lazyCatalog = LazyProductCatalog.index(CATALOG_FILE, productReader, 10);
+        ProductCatalog eagerCatalog = ProductCatalog.load(CATALOG_FILE, productReader, 1);
+
+        // WHEN - look up the products
+        Product product = lazyCatalog.getProduct("B00006IEJB");
+
+        // THEN - the same products are found
+        assertEquals(eagerCatalog.size(), lazyCatalog.size(), "Expected every product to be indexed");
+        assertNotNull(product, "Expected known ASIN to be found");
+        assertEquals("Sharpie", product.getVendor(), "Expected product vendor to be parsed");
+        assertTrue(product.isSNS(), "Expected product SNS flag to be parsed");
+        assertEquals(new BigDecimal("5.99"), product.getListPrice(), "Expected exact list price to be parsed");
+        assertNull(lazyCatalog.getProduct("B000000000"), "Expected unknown ASIN not to be found");
+    }
+
+    @Test
+    void getProduct_moreProductsThanCacheSize_cacheStaysBounded() throws IOException {
+        // GIVEN - a catalogue of 100 products with room to cache 10
+        StringBuilder products = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            products.append(String.format("{ \"asin\": \"%s\", \"title\": \"Product %d\", \"listPrice\": 1.99 }\n",
+                                          asin(i), i));
+        }
+        FileUtils.writeStringToFile(catalogFile, products.toString(), Charset.defaultCharset());
+        LazyProductCatalog catalog = LazyProductCatalog.index(catalogFile, productReader, 10);
+        assertEquals(0, catalog.cachedSize(), "Expected no products to be parsed at startup");
+
+        // WHEN - look up every product
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Product " + i, catalog.getProduct(asin(i)).getTitle(),
+                         "Expected the product at the indexed position to be parsed");
+        }
+
+        // THEN - only the most recently used products are kept
+        assertTrue(catalog.cachedSize() <= 10, "Expected the cache to stay within its size");
+    }
+
+    @Test
+    void checkEligibility_catalogFile_noProductParsed() throws IOException {
+        // GIVEN - the catalogue file, indexed lazily
+        LazyProductCatalog catalog = LazyProductCatalog.index(CATALOG_FILE, productReader, 10);
+
+        // WHEN - check eligibility of an SNS product, a non-SNS product and an unknown ASIN
+        Eligibility sns = catalog.checkEligibility("B00006IEJB");
+        Eligibility notSns = catalog.checkEligibility("B07R5QD598");
+        Eligibility unknown = catalog.checkEligibility("B000000000");
+
+        // THEN - each matches the product's SNS flag, without parsing any product
+        assertEquals(Eligibility.ELIGIBLE, sns, "Expected SNS product to be eligible");
+        assertEquals(Eligibility.NOT_SNS, notSns, "Expected non-SNS product not to be eligible");
+        assertEquals(Eligibility.UNKNOWN_ASIN, unknown, "Expected ASIN not in the catalogue to be unknown");
+        assertEquals(0, catalog.cachedSize(), "Expected eligibility checks not to parse any product");
+    }
+
+    @Test
+    void index_multiLineAndDuplicateProducts_lastProductServed() throws IOException {
+        // GIVEN - a product spread over several lines, and an ASIN that appears twice
+        FileUtils.writeStringToFile(catalogFile,
+                                    "{\n  \"asin\": \"" + asin(1) + "\",\n  \"title\": \"first\"\n}\n" +
+                                        "{ \"title\": \"other\", \"asin\": \"" + asin(2) + "\" }\n" +
+                                        "{ \"asin\": \"" + asin(1) + "\", \"title\": \"second\" }\n",
+                                    Charset.defaultCharset());
+
+        // WHEN - index it
+        LazyProductCatalog catalog = LazyProductCatalog.index(catalogFile, productReader, 10);
+
+        // THEN - each ASIN is indexed once, with the last product for it
+        assertEquals(2, catalog.size(), "Expected one entry per distinct ASIN");
+        assertEquals("second", catalog.getProduct(asin(1)).getTitle(), "Expected the last duplicate to be served");
+        assertEquals("other", catalog.getProduct(asin(2)).getTitle(), "Expected asin after other fields to be found");
+    }
+
+    @Test
+    void index_productWithoutAsin_exceptionOccurs() throws IOException {
+        // GIVEN - a catalogue file with a product that has no ASIN
+        FileUtils.writeStringToFile(catalogFile, "{ \"title\": \"no asin\" }\n", Charset.defaultCharset());
+
+        // WHEN & THEN - indexing fails
+        assertThrows(IOException.class, () -> LazyProductCatalog.index(catalogFile, productReader, 10),
+                     "Expected a product without an ASIN to fail the index");
+    }
+
+    private static String asin(int i) {
+        return String.format("B%09d", i);
+    }
+}
@@ -0,0 +1,59 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PriceCentsTest {
+
+    @Test
+    void of_pricesOfEveryScale_convertedToCents() {
+        // GIVEN - prices with no, one, two and three decimal places
+
+        // WHEN - convert them to cents
+        long whole = PriceCents.of(new BigDecimal("10"));
+        long tenths = PriceCents.of(new BigDecimal("2.5"));
+        long cents = PriceCents.of(new BigDecimal("5.99"));
+        long fractionOfCent = PriceCents.of(new BigDecimal("3.005"));
+
+        // THEN - each is a whole number of cents, rounded half up
+        assertEquals(1000, whole, "Expected whole price in cents");
+        assertEquals(250, tenths, "Expected price with tenths in cents");
+        assertEquals(599, cents, "Expected price with cents in cents");
+        assertEquals(301, fractionOfCent, "Expected fraction of a cent rounded half up");
+    }
+
+    @Test
+    void of_unscaledPrice_sameAsBigDecimal() {
+        // GIVEN - prices as unscaled values and scales
+
+        // WHEN & THEN - converting them matches converting the BigDecimal
+        for (int scale = -1; scale <= 4; scale++) {
+            assertEquals(PriceCents.of(BigDecimal.valueOf(123456, scale)), PriceCents.of(123456, scale),
+                         "Expected unscaled conversion to match BigDecimal at scale " + scale);
+        }
+    }
+
+    @Test
+    void of_tooLargeForCents_exceptionOccurs() {
+        // GIVEN - a price whose cents do not fit in a long
+        long unscaledPrice = Long.MAX_VALUE / 10;
+
+        // WHEN & THEN - conversion fails rather than overflowing
+        assertThrows(ArithmeticException.class, () -> PriceCents.of(unscaledPrice, 0),
+                     "Expected overflowing price to be rejected");
+    }
+
+    @Test
+    void toPrice_cents_priceWithTwoDecimalPlaces() {
+        // GIVEN - a price in cents, and no price
+
+        // WHEN & THEN - converting back gives a price to the cent, or null
+        assertEquals(new BigDecimal("5.99"), PriceCents.toPrice(599), "Expected price with a scale of 2");
+        assertNull(PriceCents.toPrice(PriceCents.NONE), "Expected no price for NONE");
+    }
+}
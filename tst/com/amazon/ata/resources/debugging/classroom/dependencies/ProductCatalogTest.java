@@ -0,0 +1,153 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.amazon.ata.unittesting.subscribeandsave.App;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProductCatalogTest {
+
+    private static final File CATALOG_FILE = Paths.get(App.DATA_FILE_ROOT_PATH, "catalog.json").toFile();
+    private static final int PRODUCT_COUNT = 30_000;
+
+    private ObjectReader productReader;
+    private File catalogFile;
+
+    @BeforeEach
+    private void setup() throws IOException {
+        productReader = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                                          .readerFor(Product.class);
+        catalogFile = Files.createTempFile("catalog", ".json").toFile();
+    }
+
+    @AfterEach
+    private void deleteCatalogFile() {
+        FileUtils.deleteQuietly(catalogFile);
+    }
+
+    @Test
+    void load_catalogFile_everyProductLoaded() throws IOException {
+        // GIVEN - the catalogue file
+
+        // WHEN - load it
+        ProductCatalog catalog = ProductCatalog.load(CATALOG_FILE, productReader, 4);
+
+        // THEN - every product is loaded with its fields
+        assertEquals(6, catalog.size(), "Expected one product per catalogue line");
+        Product product = catalog.getProduct("B00006IEJB");
+        assertNotNull(product, "Expected known ASIN to be loaded");
+        assertEquals("Sharpie", product.getVendor(), "Expected product vendor to be loaded");
+        assertTrue(product.isSNS(), "Expected product SNS flag to be loaded");
+        assertEquals(new BigDecimal("5.99"), product.getListPrice(), "Expected exact list price to be loaded");
+        assertNull(catalog.getProduct("B000000000"), "Expected unknown ASIN not to be found");
+    }
+
+    @Test
+    void checkEligibility_catalogFile_matchesProducts() throws IOException {
+        // GIVEN - the catalogue file
+        ProductCatalog catalog = ProductCatalog.load(CATALOG_FILE, productReader, 4);
+
+        // WHEN - check eligibility of an SNS product, a non-SNS product and an unknown ASIN
+        Eligibility sns = catalog.checkEligibility("B00006IEJB");
+        Eligibility notSns = catalog.checkEligibility("B07R5QD598");
+        Eligibility unknown = catalog.checkEligibility("B000000000");
+
+        // THEN - each matches the product's SNS flag
+        assertEquals(Eligibility.ELIGIBLE, sns, "Expected SNS product to be eligible");
+        assertEquals(Eligibility.NOT_SNS, notSns, "Expected non-SNS product not to be eligible");
+        assertEquals(Eligibility.UNKNOWN_ASIN, unknown, "Expected ASIN not in the catalogue to be unknown");
+    }
+
+    @Test
+    void load_fileSplitIntoRanges_everyLineLoadedOnce() throws IOException {
+        // GIVEN - a catalogue file several megabytes long, so it is split into ranges
+        StringBuilder products = new StringBuilder();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            products.append(productLine(asin(i), i, "Vendor"));
+        }
+        FileUtils.writeStringToFile(catalogFile, products.toString(), Charset.defaultCharset());
+
+        // WHEN - load it on 4 threads
+        ProductCatalog catalog = ProductCatalog.load(catalogFile, productReader, 4);
+
+        // THEN - every product is loaded, none cut at a range boundary
+        assertEquals(PRODUCT_COUNT, catalog.size(), "Expected every line to be loaded");
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            assertNotNull(catalog.getProduct(asin(i)), "Expected product " + i + " to be loaded");
+        }
+    }
+
+    @Test
+    void load_malformedLine_exceptionOccurs() throws IOException {
+        // GIVEN - a catalogue file with a line that is not JSON
+        FileUtils.writeStringToFile(catalogFile, "{ \"asin\": \"B00006IEJB\" }\nnot json\n",
+                                    Charset.defaultCharset());
+
+        // WHEN & THEN - loading fails
+        assertThrows(IOException.class, () -> ProductCatalog.load(catalogFile, productReader, 4),
+                     "Expected a malformed catalogue line to fail the load");
+    }
+
+    @Test
+    void load_asinOnLinesInDifferentRanges_lastLineKept() throws IOException {
+        // GIVEN - a catalogue file split into ranges, whose first ASIN appears again on its last line
+        StringBuilder products = new StringBuilder();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            products.append(productLine(asin(i), i, "Vendor"));
+        }
+        products.append(productLine(asin(0), 0, "Last Vendor"));
+        FileUtils.writeStringToFile(catalogFile, products.toString(), Charset.defaultCharset());
+
+        // WHEN - load it on 4 threads, several times
+        for (int load = 0; load < 5; load++) {
+            ProductCatalog catalog = ProductCatalog.load(catalogFile, productReader, 4);
+
+            // THEN - the product on the last line with the ASIN is kept
+            assertEquals(PRODUCT_COUNT, catalog.size(), "Expected one product per distinct ASIN");
+            assertEquals("Last Vendor", catalog.getProduct(asin(0)).getVendor(),
+                         "Expected the last line with a repeated ASIN to be kept");
+        }
+    }
+
+    @Test
+    void load_productWithoutAsin_exceptionOccurs() throws IOException {
+        // GIVEN - a catalogue file with a product that has no ASIN
+        FileUtils.writeStringToFile(catalogFile, "{ \"asin\": \"B00006IEJB\" }\n{ \"title\": \"No ASIN\" }\n",
+                                    Charset.defaultCharset());
+
+        // WHEN & THEN - loading fails, naming where the product is
+        IOException exception = assertThrows(IOException.class,
+                                             () -> ProductCatalog.load(catalogFile, productReader, 4),
+                                             "Expected a product without an ASIN to fail the load");
+        assertTrue(exception.getMessage().contains("byte 25"),
+                   "Expected the error to give the product's position, but was: " + exception.getMessage());
+    }
+
+    private static String productLine(String asin, int i, String vendor) {
+        return String.format("{ \"asin\": \"%s\", \"title\": \"Product %d with a title long enough to matter\", " +
+                                 "\"isSNS\": %b, \"vendor\": \"%s\", \"listPrice\": %d.99 }\n",
+                             asin, i, i % 2 == 0, vendor, i % 100);
+    }
+
+    private static String asin(int i) {
+        return String.format("B%09d", i);
+    }
+}
@@ -0,0 +1,119 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.amazon.ata.unittesting.subscribeandsave.App;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProductSnapshotFileTest {
+
+    private static final File CATALOG_FILE = Paths.get(App.DATA_FILE_ROOT_PATH, "catalog.json").toFile();
+    private static final String[] ASINS = {
+        "B00006IEJB", "B01BMDAVIY", "B072PR8QNN", "B07R5QD598", "B079BG3LQF", "B00ILBUEVK"
+    };
+
+    private File snapshotFile;
+
+    @BeforeEach
+    private void createSnapshotFile() throws IOException {
+        snapshotFile = Files.createTempFile("catalog", ".snapshot").toFile();
+    }
+
+    @AfterEach
+    private void deleteSnapshotFile() {
+        FileUtils.deleteQuietly(snapshotFile);
+    }
+
+    @Test
+    void getProduct_compiledCatalogFile_sameProductsAsCatalogFile() throws IOException {
+        // GIVEN - a snapshot compiled from the catalogue file
+        ProductSnapshotFile.compile(CATALOG_FILE, snapshotFile);
+        AmazonProductService productService = new AmazonProductService(CATALOG_FILE);
+
+        // WHEN - open it
+        ProductSnapshotFile snapshot = ProductSnapshotFile.open(snapshotFile);
+
+        // THEN - every product reads back exactly as parsed from the catalogue
+        assertEquals(ASINS.length, snapshot.size(), "Expected every product to be in the snapshot");
+        for (String asin : ASINS) {
+            Product expected = productService.getProductByAsin(asin);
+            Product actual = snapshot.getProduct(asin);
+            assertNotNull(actual, "Expected " + asin + " to be found");
+            assertEquals(expected.getAsin(), actual.getAsin(), "Expected asin of " + asin + " to match");
+            assertEquals(expected.getTitle(), actual.getTitle(), "Expected title of " + asin + " to match");
+            assertEquals(expected.getVendor(), actual.getVendor(), "Expected vendor of " + asin + " to match");
+            assertEquals(expected.isSNS(), actual.isSNS(), "Expected SNS flag of " + asin + " to match");
+            assertEquals(expected.getListPrice(), actual.getListPrice(), "Expected price of " + asin + " to match");
+            assertEquals(productService.checkEligibility(asin), snapshot.checkEligibility(asin),
+                         "Expected eligibility of " + asin + " to match");
+        }
+        assertNull(snapshot.getProduct("B000000000"), "Expected unknown ASIN not to be found");
+        assertEquals(Eligibility.UNKNOWN_ASIN, snapshot.checkEligibility("B000000000"),
+                     "Expected unknown ASIN not to be eligible");
+    }
+
+    @Test
+    void getProduct_missingAndNonAsciiFields_readBackUnchanged() throws IOException {
+        // GIVEN - a catalogue with a product missing its vendor and price, and one with a non-ASCII ASIN
+        File catalogFile = Files.createTempFile("catalog", ".json").toFile();
+        try {
+            FileUtils.writeStringToFile(catalogFile,
+                                        "{ \"asin\": \"B000000001\", \"title\": \"bare\" }\n" +
+                                            "{ \"asin\": \"\\u00C9000000002\", \"listPrice\": 10.500 }\n",
+                                        Charset.defaultCharset());
+
+            // WHEN - compile and open it
+            ProductSnapshotFile.compile(catalogFile, snapshotFile);
+            ProductSnapshotFile snapshot = ProductSnapshotFile.open(snapshotFile);
+
+            // THEN - missing fields stay missing, and the price keeps its scale
+            Product bare = snapshot.getProduct("B000000001");
+            assertEquals("bare", bare.getTitle(), "Expected title to be read back");
+            assertNull(bare.getVendor(), "Expected missing vendor to stay null");
+            assertNull(bare.getListPrice(), "Expected missing price to stay null");
+            Product nonAscii = snapshot.getProduct("\u00C9000000002");
+            assertNotNull(nonAscii, "Expected non-ASCII ASIN to be found");
+            assertEquals(new BigDecimal("10.500"), nonAscii.getListPrice(), "Expected price scale to be kept");
+        } finally {
+            FileUtils.deleteQuietly(catalogFile);
+        }
+    }
+
+    @Test
+    void open_notASnapshot_exceptionOccurs() {
+        // GIVEN - a catalogue file rather than a compiled snapshot
+
+        // WHEN & THEN - opening it fails
+        assertThrows(IOException.class, () -> ProductSnapshotFile.open(CATALOG_FILE),
+                     "Expected a file that is not a snapshot to be rejected");
+    }
+
+    @Test
+    void getProductByAsin_snapshotMode_productFound() throws IOException {
+        // GIVEN - a product service over a compiled snapshot
+        ProductSnapshotFile.compile(CATALOG_FILE, snapshotFile);
+        AmazonProductService productService = new AmazonProductService(snapshotFile, CatalogMode.SNAPSHOT);
+
+        // WHEN - look up a product
+        Product product = productService.getProductByAsin("B00006IEJB");
+
+        // THEN - it is read from the snapshot
+        assertEquals("Sharpie", product.getVendor(), "Expected product to be read from the snapshot");
+        assertEquals(Eligibility.NOT_SNS, productService.checkEligibility("B07R5QD598"),
+                     "Expected eligibility to be read from the snapshot");
+    }
+}
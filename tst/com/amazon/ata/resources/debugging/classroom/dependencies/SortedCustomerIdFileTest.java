@@ -0,0 +1,111 @@
+package com.amazon.ata.resources.debugging.classroom.dependencies;
+
+import com.amazon.ata.unittesting.subscribeandsave.App;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SortedCustomerIdFileTest {
+
+    private static final File CUSTOMER_ID_FILE = Paths.get(App.DATA_FILE_ROOT_PATH, "customers.txt").toFile();
+    private static final String CUSTOMER_ID = "amzn1.account.AEZI3A063427738YROOFT8WCXKDE";
+    private static final String UNKNOWN_CUSTOMER_ID = "amzn1.account.AE12121212121212121212121212";
+
+    private File sortedIdFile;
+
+    @BeforeEach
+    private void createSortedIdFile() throws IOException {
+        sortedIdFile = Files.createTempFile("customers", ".ids").toFile();
+    }
+
+    @AfterEach
+    private void deleteSortedIdFile() {
+        FileUtils.deleteQuietly(sortedIdFile);
+    }
+
+    @Test
+    void contains_compiledCustomerIdFile_everyCustomerFound() throws IOException {
+        // GIVEN - the customer ID file compiled to a sorted ID file
+        SortedCustomerIdFile.compile(CUSTOMER_ID_FILE, sortedIdFile);
+
+        // WHEN - map it
+        SortedCustomerIdFile sortedIds = SortedCustomerIdFile.open(sortedIdFile);
+
+        // THEN - every customer is found
+        for (String customerId : FileUtils.readLines(CUSTOMER_ID_FILE, Charset.defaultCharset())) {
+            assertTrue(sortedIds.contains(customerId), "Expected compiled file to contain " + customerId);
+        }
+        // and unknown, truncated and extended IDs are not
+        assertFalse(sortedIds.contains(UNKNOWN_CUSTOMER_ID), "Expected unknown customer ID not to be found");
+        assertFalse(sortedIds.contains(CUSTOMER_ID.substring(0, CUSTOMER_ID.length() - 1)),
+                    "Expected truncated customer ID not to be found");
+        assertFalse(sortedIds.contains(CUSTOMER_ID + "X"), "Expected extended customer ID not to be found");
+    }
+
+    @Test
+    void contains_afterClose_exceptionOccurs() throws IOException {
+        // GIVEN - a mapped sorted ID file, closed
+        SortedCustomerIdFile.compile(CUSTOMER_ID_FILE, sortedIdFile);
+        SortedCustomerIdFile sortedIds = SortedCustomerIdFile.open(sortedIdFile);
+        sortedIds.close();
+
+        // WHEN & THEN - lookups fail rather than reading the unmapped file
+        assertFalse(sortedIds.isOpen(), "Expected a closed file to report itself closed");
+        assertThrows(IllegalStateException.class, () -> sortedIds.contains(CUSTOMER_ID),
+                     "Expected a lookup after close to fail");
+    }
+
+    @Test
+    void compile_duplicateAndBlankLines_droppedFromFile() throws IOException {
+        // GIVEN - a customer ID file with a duplicate and a blank line
+        File customerIdFile = Files.createTempFile("customers", ".txt").toFile();
+        try {
+            FileUtils.writeStringToFile(customerIdFile, CUSTOMER_ID + "\n\n" + CUSTOMER_ID + "\n",
+                                        Charset.defaultCharset());
+
+            // WHEN - compile it
+            SortedCustomerIdFile.compile(customerIdFile, sortedIdFile);
+
+            // THEN - only the one distinct ID is stored
+            assertEquals(1, SortedCustomerIdFile.open(sortedIdFile).size(), "Expected one distinct customer ID");
+        } finally {
+            FileUtils.deleteQuietly(customerIdFile);
+        }
+    }
+
+    @Test
+    void open_notASortedIdFile_exceptionOccurs() {
+        // GIVEN - a plain customer ID file
+
+        // WHEN & THEN - it cannot be opened as a sorted ID file
+        assertThrows(IOException.class, () -> SortedCustomerIdFile.open(CUSTOMER_ID_FILE),
+                     "Expected opening a text file as a sorted ID file to fail");
+    }
+
+    @Test
+    void validateCustomer_tieredMode_matchesExactMode() throws IOException {
+        // GIVEN - identity services over the same customers, one exact and one tiered
+        SortedCustomerIdFile.compile(CUSTOMER_ID_FILE, sortedIdFile);
+        AmazonIdentityService exactService = new AmazonIdentityService(CUSTOMER_ID_FILE);
+        AmazonIdentityService tieredService = new AmazonIdentityService(sortedIdFile, IdentityMode.TIERED);
+
+        // WHEN & THEN - both agree on known and unknown customers
+        for (String customerId : new String[] {CUSTOMER_ID, UNKNOWN_CUSTOMER_ID}) {
+            assertEquals(exactService.validateCustomer(customerId), tieredService.validateCustomer(customerId),
+                         "Expected tiered validation to match exact validation for " + customerId);
+        }
+    }
+}
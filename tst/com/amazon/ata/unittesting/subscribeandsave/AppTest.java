@@ -0,0 +1,48 @@
+package com.amazon.ata.unittesting.subscribeandsave;
+
+import com.amazon.ata.unittesting.subscribeandsave.test.util.SubscriptionRestorer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AppTest {
+
+    @Test
+    void getters_calledTwice_sameInstanceReturned() {
+        // GIVEN - components fetched once
+
+        // WHEN & THEN - fetching them again returns the same instances
+        assertSame(App.getAmazonProductService(), App.getAmazonProductService(),
+                   "Expected one shared product service");
+        assertSame(App.getAmazonIdentityService(), App.getAmazonIdentityService(),
+                   "Expected one shared identity service");
+        assertSame(App.getSubscriptionFileStorage(), App.getSubscriptionFileStorage(),
+                   "Expected one shared subscription storage");
+        assertSame(App.getSubscriptionDAO(), App.getSubscriptionDAO(), "Expected one shared subscription DAO");
+    }
+
+    @Test
+    void start_withWarmUp_readyWithSharedInstances() {
+        // GIVEN - a component already built on first use
+        Object productService = App.getAmazonProductService();
+
+        // WHEN - start with warm-up
+        App.start(true);
+
+        // THEN - the application is ready, and kept the component it had already built
+        assertTrue(App.isReady(), "Expected the application to be ready after starting");
+        assertSame(productService, App.getAmazonProductService(), "Expected start to reuse built components");
+        assertTrue(App.getAmazonIdentityService().validateCustomer("amzn1.account.AEZI3A06339413S37ZHKJQUEGLC4"),
+                   "Expected the started identity service to validate known customers");
+    }
+
+    @BeforeEach
+    @AfterEach
+    private void restoreSubscriptions() {
+        SubscriptionRestorer.restoreSubscriptions();
+    }
+}
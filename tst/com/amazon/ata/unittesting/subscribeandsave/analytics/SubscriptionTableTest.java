@@ -0,0 +1,167 @@
+package com.amazon.ata.unittesting.subscribeandsave.analytics;
+
+import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonProductService;
+import com.amazon.ata.unittesting.subscribeandsave.App;
+import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SubscriptionTableTest {
+
+    private static final String SNS_ASIN = "B00006IEJB";
+    private static final String OTHER_SNS_ASIN = "B01BMDAVIY";
+    private static final String UNKNOWN_ASIN = "B000000000";
+
+    @Test
+    void getSubscription_uuidAndOtherIds_rowsReadBackUnchanged() {
+        // GIVEN - subscriptions with a UUID, a non-canonical UUID, a free-form ID and no ID
+        List<Subscription> subscriptions = Arrays.asList(
+            subscription(UUID.randomUUID().toString(), "amzn1.account.AEZI3A06339413", SNS_ASIN, 1),
+            subscription(UUID.randomUUID().toString().toUpperCase(), "amzn1.account.AEZI3A06339413", SNS_ASIN, 3),
+            subscription("legacy-1", "amzn1.account.AEZI3A027560538W420H09ACTDP2", OTHER_SNS_ASIN, 6),
+            subscription(null, "amzn1.account.AEZI3A027560538W420H09ACTDP2", SNS_ASIN, 2));
+
+        // WHEN - build a table from them
+        SubscriptionTable table = SubscriptionTable.of(subscriptions);
+
+        // THEN - every row reads back as the subscription it was built from
+        assertEquals(subscriptions.size(), table.size(), "Expected one row per subscription");
+        assertEquals(2, table.getCustomerCodeCount(), "Expected each customer to be held once");
+        assertEquals(2, table.getAsinCodeCount(), "Expected each ASIN to be held once");
+        for (int row = 0; row < subscriptions.size(); row++) {
+            Subscription expected = subscriptions.get(row);
+            Subscription actual = table.getSubscription(row);
+            assertEquals(expected.getId(), actual.getId(), "Expected ID of row " + row + " to match");
+            assertEquals(expected.getCustomerId(), actual.getCustomerId(),
+                         "Expected customer ID of row " + row + " to match");
+            assertEquals(expected.getAsin(), actual.getAsin(), "Expected ASIN of row " + row + " to match");
+            assertEquals(expected.getFrequency(), actual.getFrequency(),
+                         "Expected frequency of row " + row + " to match");
+        }
+    }
+
+    @Test
+    void of_frequencyOutOfRange_exceptionOccurs() {
+        // GIVEN - a subscription with a frequency too large for the table
+        List<Subscription> subscriptions =
+            Collections.singletonList(subscription(UUID.randomUUID().toString(), "customer", SNS_ASIN, 128));
+
+        // WHEN & THEN - building the table fails
+        assertThrows(IllegalArgumentException.class, () -> SubscriptionTable.of(subscriptions),
+                     "Expected a frequency outside 0-127 to be rejected");
+    }
+
+    @Test
+    void countByAsin_manyRowsOnSeveralThreads_sameAsSequentialCount() {
+        // GIVEN - enough subscriptions to split across several tasks
+        List<Subscription> subscriptions = new ArrayList<>();
+        long[] expectedFrequencies = new long[Byte.MAX_VALUE + 1];
+        for (int i = 0; i < 500_000; i++) {
+            int frequency = i % 6 + 1;
+            subscriptions.add(subscription(UUID.randomUUID().toString(), "customer" + i % 1000,
+                                           String.format("B%09d", i % 7), frequency));
+            expectedFrequencies[frequency]++;
+        }
+        SubscriptionTable table = SubscriptionTable.of(subscriptions, new ForkJoinPool(4));
+
+        // WHEN - count by ASIN and by frequency
+        Map<String, Long> countsByAsin = table.countByAsin();
+        long[] frequencies = table.frequencyDistribution();
+
+        // THEN - every row is counted exactly once
+        assertEquals(7, countsByAsin.size(), "Expected a count for each ASIN");
+        for (int asin = 0; asin < 7; asin++) {
+            long expected = 500_000 / 7 + (asin < 500_000 % 7 ? 1 : 0);
+            assertEquals(Long.valueOf(expected), countsByAsin.get(String.format("B%09d", asin)),
+                         "Expected every subscription to ASIN " + asin + " to be counted");
+        }
+        assertArrayEquals(expectedFrequencies, frequencies, "Expected every frequency to be counted");
+    }
+
+    @Test
+    void annualListPriceCents_knownAndUnknownAsins_pricedSubscriptionsTotalled() {
+        // GIVEN - subscriptions to two priced products and one ASIN missing from the catalogue
+        AmazonProductService productService = App.getAmazonProductService();
+        SubscriptionTable table = SubscriptionTable.of(Arrays.asList(
+            subscription(UUID.randomUUID().toString(), "customer1", SNS_ASIN, 1),
+            subscription(UUID.randomUUID().toString(), "customer2", SNS_ASIN, 6),
+            subscription(UUID.randomUUID().toString(), "customer1", OTHER_SNS_ASIN, 3),
+            subscription(UUID.randomUUID().toString(), "customer1", UNKNOWN_ASIN, 1)));
+
+        // WHEN - total a year of deliveries
+        long totalCents = table.annualListPriceCents(productService);
+
+        // THEN - each priced subscription contributes its deliveries per year, and the unknown ASIN nothing
+        long expectedCents = productService.getListPriceCents(SNS_ASIN) * 12 +
+            productService.getListPriceCents(SNS_ASIN) * 2 +
+            productService.getListPriceCents(OTHER_SNS_ASIN) * 4;
+        assertEquals(expectedCents, totalCents, "Expected a year of deliveries of each priced subscription");
+    }
+
+    @Test
+    void annualListPriceCents_frequenciesNotDividingAYear_totalRoundedOnce() {
+        // GIVEN - subscriptions whose yearly deliveries are not a whole number of cents each
+        AmazonProductService productService = App.getAmazonProductService();
+        SubscriptionTable table = SubscriptionTable.of(Arrays.asList(
+            subscription(UUID.randomUUID().toString(), "customer1", SNS_ASIN, 5),
+            subscription(UUID.randomUUID().toString(), "customer2", SNS_ASIN, 5),
+            subscription(UUID.randomUUID().toString(), "customer3", SNS_ASIN, 5),
+            subscription(UUID.randomUUID().toString(), "customer1", OTHER_SNS_ASIN, 7)));
+
+        // WHEN - total a year of deliveries
+        long totalCents = table.annualListPriceCents(productService);
+
+        // THEN - the exact total is rounded half up to the cent, rather than each subscription rounded down
+        BigDecimal expectedCents = BigDecimal.valueOf(productService.getListPriceCents(SNS_ASIN) * 12 * 3)
+            .divide(BigDecimal.valueOf(5), MathContext.DECIMAL64)
+            .add(BigDecimal.valueOf(productService.getListPriceCents(OTHER_SNS_ASIN) * 12)
+                     .divide(BigDecimal.valueOf(7), MathContext.DECIMAL64));
+        assertEquals(expectedCents.setScale(0, RoundingMode.HALF_UP).longValueExact(), totalCents,
+                     "Expected the total to be rounded once, half up");
+    }
+
+    @Test
+    void countByVendor_knownAndUnknownAsins_knownVendorsCounted() {
+        // GIVEN - subscriptions to two products and one ASIN missing from the catalogue
+        AmazonProductService productService = App.getAmazonProductService();
+        SubscriptionTable table = SubscriptionTable.of(Arrays.asList(
+            subscription(UUID.randomUUID().toString(), "customer1", SNS_ASIN, 1),
+            subscription(UUID.randomUUID().toString(), "customer2", SNS_ASIN, 6),
+            subscription(UUID.randomUUID().toString(), "customer1", OTHER_SNS_ASIN, 3),
+            subscription(UUID.randomUUID().toString(), "customer1", UNKNOWN_ASIN, 1)));
+
+        // WHEN - count by vendor
+        Map<String, Long> countsByVendor = table.countByVendor(productService);
+
+        // THEN - subscriptions are counted against their product's vendor
+        assertEquals(2, countsByVendor.size(), "Expected only vendors of known products");
+        assertEquals(Long.valueOf(2), countsByVendor.get(productService.getProductByAsin(SNS_ASIN).getVendor()),
+                     "Expected both subscriptions to the first product counted against its vendor");
+        assertEquals(Long.valueOf(1), countsByVendor.get(productService.getProductByAsin(OTHER_SNS_ASIN).getVendor()),
+                     "Expected the subscription to the second product counted against its vendor");
+    }
+
+    private static Subscription subscription(String id, String customerId, String asin, int frequency) {
+        return Subscription.builder()
+                           .withSubscriptionId(id)
+                           .withCustomerId(customerId)
+                           .withAsin(asin)
+                           .withFrequency(frequency)
+                           .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.amazon.ata.unittesting.subscribeandsave.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdDictionaryTest {
+
+    @Test
+    void encode_repeatedValues_denseCodesInFirstSeenOrder() {
+        // GIVEN - an empty dictionary
+        IdDictionary dictionary = new IdDictionary();
+
+        // WHEN - encode values, some of them twice
+        int first = dictionary.encode("B00006IEJB");
+        int second = dictionary.encode("B01BMDAVIY");
+        int repeated = dictionary.encode(new String("B00006IEJB"));
+
+        // THEN - each distinct value gets the next code, and keeps it
+        assertEquals(0, first, "Expected the first value to get code 0");
+        assertEquals(1, second, "Expected the next value to get code 1");
+        assertEquals(first, repeated, "Expected an equal value to get the same code");
+        assertEquals(2, dictionary.size(), "Expected one code per distinct value");
+        assertEquals("B01BMDAVIY", dictionary.decode(second), "Expected a code to decode to its value");
+        assertEquals(IdDictionary.NOT_FOUND, dictionary.find("B000000000"), "Expected unknown value not to be found");
+        assertEquals(2, dictionary.size(), "Expected find not to assign a code");
+    }
+
+    @Test
+    void canonicalize_equalValues_sameInstanceReturned() {
+        // GIVEN - a dictionary holding a value
+        IdDictionary dictionary = new IdDictionary();
+        String held = dictionary.canonicalize("amzn1.account.AEZI3A06339413");
+
+        // WHEN - canonicalize an equal but distinct String
+        String canonical = dictionary.canonicalize(new String("amzn1.account.AEZI3A06339413"));
+
+        // THEN - the held instance is returned
+        assertSame(held, canonical, "Expected equal values to share one instance");
+    }
+
+    @Test
+    void encode_nullValueOrUnknownCode_exceptionOccurs() {
+        // GIVEN - an empty dictionary
+        IdDictionary dictionary = new IdDictionary();
+
+        // WHEN & THEN - null values and unassigned codes are rejected
+        assertThrows(IllegalArgumentException.class, () -> dictionary.encode(null),
+                     "Expected a null value to be rejected");
+        assertThrows(IllegalArgumentException.class, () -> dictionary.decode(0),
+                     "Expected an unassigned code to be rejected");
+    }
+
+    @Test
+    void encode_manyThreads_eachValueGetsOneCode() {
+        // GIVEN - a dictionary shared by several threads
+        IdDictionary dictionary = new IdDictionary();
+        Set<Integer> codes = ConcurrentHashMap.newKeySet();
+
+        // WHEN - encode overlapping values from every thread, well past the initial capacity
+        IntStream.range(0, 40_000).parallel()
+                 .forEach(i -> codes.add(dictionary.encode("customer" + i % 10_000)));
+
+        // THEN - every distinct value has exactly one dense code that decodes back to it
+        assertEquals(10_000, dictionary.size(), "Expected one code per distinct value");
+        assertEquals(10_000, codes.size(), "Expected every value to keep its first code");
+        for (int i = 0; i < 10_000; i++) {
+            int code = dictionary.find("customer" + i);
+            assertEquals("customer" + i, dictionary.decode(code), "Expected each code to decode to its value");
+        }
+    }
+}
@@ -8,9 +8,25 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 public class SubscriptionDAOTest {
 
@@ -70,6 +86,88 @@ public class SubscriptionDAOTest {
         assertNotNull(result.getId(), "Creating a subscription should populate a subscription ID");
     }
 
+    @Test
+    void getSubscription_concurrentLookupsForSameId_shareOneStorageRead() throws Exception {
+        // GIVEN - a storage read for a subscription that is still in flight
+        CountingStorage storage = new CountingStorage();
+        SubscriptionDAO coalescingDao = new SubscriptionDAO(storage);
+        int waiterCount = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(waiterCount + 1);
+
+        try {
+            List<Future<Subscription>> results = new ArrayList<>();
+            results.add(executor.submit(() -> coalescingDao.getSubscription(SUBSCRIPTION_ID)));
+            assertTrue(storage.readStarted.await(5, TimeUnit.SECONDS), "Expected the first lookup to read storage");
+
+            // WHEN - more lookups for the same ID arrive before the read completes
+            List<Thread> waiters = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < waiterCount; i++) {
+                results.add(executor.submit(() -> {
+                    waiters.add(Thread.currentThread());
+                    return coalescingDao.getSubscription(SUBSCRIPTION_ID);
+                }));
+            }
+            awaitWaiting(waiters, waiterCount);
+            storage.releaseRead.countDown();
+
+            // THEN
+            // storage is only read once
+            Set<Subscription> distinctResults = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<Subscription> result : results) {
+                Subscription subscription = result.get(5, TimeUnit.SECONDS);
+                assertEquals(SUBSCRIPTION_ID, subscription.getId(), "Every lookup should get the subscription");
+                distinctResults.add(subscription);
+            }
+            assertEquals(1, storage.readCount.get(), "Concurrent lookups for the same ID should share one read");
+            // and every caller shares the one immutable result, without a copy
+            assertEquals(1, distinctResults.size(), "Every lookup should share the subscription read");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitWaiting(List<Thread> threads, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            int waiting = 0;
+            for (Thread thread : threads) {
+                if (thread.getState() == Thread.State.WAITING) {
+                    waiting++;
+                }
+            }
+            if (waiting == count) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Expected all lookups to be waiting on the in-flight read");
+    }
+
+    /**
+     * Storage that counts reads by ID, and holds the first read open until released.
+     */
+    private static class CountingStorage extends SubscriptionFileStorage {
+        private final AtomicInteger readCount = new AtomicInteger();
+        private final CountDownLatch readStarted = new CountDownLatch(1);
+        private final CountDownLatch releaseRead = new CountDownLatch(1);
+
+        CountingStorage() {
+            super(Paths.get(App.DATA_FILE_ROOT_PATH, "subscriptions.csv").toFile());
+        }
+
+        @Override
+        public Subscription getSubscriptionById(String subscriptionId) {
+            readCount.incrementAndGet();
+            readStarted.countDown();
+            try {
+                releaseRead.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getSubscriptionById(subscriptionId);
+        }
+    }
+
     @BeforeEach
     @AfterEach
     private void restoreSubscriptions() {
@@ -1,6 +1,7 @@
 package com.amazon.ata.unittesting.subscribeandsave.dao;
 
 
+import com.amazon.ata.unittesting.subscribeandsave.metrics.SubscriptionMetrics;
 import com.amazon.ata.unittesting.subscribeandsave.test.util.SubscriptionRestorer;
 import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
 
@@ -9,12 +10,28 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SubscriptionFileStorageTest {
 
+    private static final String JFR_CONFIGURATION_PATH = "src/resources/jfr/subscription-storage.jfc";
     private static final String TEST_FILE_PATH = "resources/unittesting/classroom/subscribeandsave/subscriptions.csv";
     private static final String ASIN = "B01BMDAVIY";
     private static final String ASIN_2 =  "";
@@ -167,6 +184,231 @@ public class SubscriptionFileStorageTest {
 
     }
 
+    @Test
+    void createSubscriptions_newAndExistingSubscriptions_onlyNewSubscriptionsWritten() {
+        // GIVEN
+        // a new subscription, and one for a customer/ASIN pair that already exists
+        Subscription newSubscription = Subscription.builder()
+                .withAsin(ASIN)
+                .withCustomerId(CUSTOMER_ID)
+                .withFrequency(1)
+                .build();
+        Subscription existingSubscription = Subscription.builder()
+                .withAsin("B00006IEJB")
+                .withCustomerId("amzn1.account.AEZI3A027560538W420H09ACTDP2")
+                .withFrequency(2)
+                .build();
+
+        // WHEN - create both subscriptions
+        List<Subscription> results =
+                subscriptionFileStorage.createSubscriptions(Arrays.asList(newSubscription, existingSubscription));
+
+        // THEN
+        // the new subscription is written and can be read back
+        assertNotNull(results.get(0), "Writing a new subscription in bulk should return the subscription");
+        assertEquals(CUSTOMER_ID, subscriptionFileStorage.getSubscriptionById(results.get(0).getId()).getCustomerId(),
+                "Reading a subscription after bulk writing should result in matching customer ID");
+        // the existing customer/ASIN pair is skipped
+        assertNull(results.get(1), "Writing an existing customer/ASIN pair in bulk should return null");
+    }
+
+    @Test
+    void createSubscriptions_sameCustomerAndAsinTwiceInBatch_onlyFirstWritten() {
+        // GIVEN - two new subscriptions for the same customer/ASIN pair
+        Subscription newSubscription = Subscription.builder()
+                .withAsin(ASIN)
+                .withCustomerId(CUSTOMER_ID)
+                .withFrequency(1)
+                .build();
+        int existingCount = subscriptionFileStorage.getSubscriptionsForCustomer(CUSTOMER_ID).size();
+
+        // WHEN - create both in one batch
+        List<Subscription> results =
+                subscriptionFileStorage.createSubscriptions(Arrays.asList(newSubscription, newSubscription));
+
+        // THEN - only the first is written
+        assertNotNull(results.get(0), "Writing a new subscription in bulk should return the subscription");
+        assertNull(results.get(1), "Writing the same customer/ASIN pair twice in one batch should skip the second");
+        assertEquals(existingCount + 1, subscriptionFileStorage.getSubscriptionsForCustomer(CUSTOMER_ID).size(),
+                "Only one subscription should be stored for the customer/ASIN pair");
+    }
+
+    @Test
+    void getSubscriptionsForCustomer_sharedDictionaries_valuesHeldByDictionaries() {
+        // GIVEN - storage that encodes with dictionaries shared with other components
+        IdDictionary customerIds = new IdDictionary();
+        IdDictionary asins = new IdDictionary();
+        subscriptionFileStorage = new SubscriptionFileStorage(new File(TEST_FILE_PATH),
+                SubscriptionMetrics.getDefault(), customerIds, asins);
+        String customerId = "amzn1.account.AEZI3A09486461G3DRR0VQPQHQ9I";
+
+        // WHEN - Get the customer's subscriptions
+        List<Subscription> results = subscriptionFileStorage.getSubscriptionsForCustomer(customerId);
+
+        // THEN - the stored customer IDs and ASINs are the dictionaries' instances
+        assertEquals(3, results.size(), "Getting a customer's subscriptions should return all of them");
+        for (Subscription result : results) {
+            assertSame(customerIds.decode(customerIds.find(customerId)), result.getCustomerId(),
+                    "Stored customer IDs should be the shared dictionary's instance");
+            assertSame(asins.decode(asins.find(result.getAsin())), result.getAsin(),
+                    "Stored ASINs should be the shared dictionary's instance");
+        }
+    }
+
+    @Test
+    void getSubscriptionsForCustomer_customerWithSubscriptions_returnsAllOfThem() {
+        // GIVEN - a customer with three existing subscriptions
+        String customerId = "amzn1.account.AEZI3A09486461G3DRR0VQPQHQ9I";
+
+        // WHEN - Get the customer's subscriptions
+        List<Subscription> results = subscriptionFileStorage.getSubscriptionsForCustomer(customerId);
+
+        // THEN - all three subscriptions are returned
+        assertEquals(3, results.size(), "Getting a customer's subscriptions should return all of them");
+        for (Subscription result : results) {
+            assertEquals(customerId, result.getCustomerId(),
+                    "Getting a customer's subscriptions should only return that customer's subscriptions");
+        }
+    }
+
+    @Test
+    void getSubscriptionsForCustomer_customerWithSubscriptions_customerIdHeldOnce() {
+        // GIVEN - a customer with three existing subscriptions
+        String customerId = "amzn1.account.AEZI3A09486461G3DRR0VQPQHQ9I";
+
+        // WHEN - Get the customer's subscriptions, and look one up again by ID
+        List<Subscription> results = subscriptionFileStorage.getSubscriptionsForCustomer(customerId);
+        Subscription byId = subscriptionFileStorage.getSubscriptionById(results.get(0).getId());
+
+        // THEN - every record shares one interned customer ID
+        for (Subscription result : results) {
+            assertSame(results.get(0).getCustomerId(), result.getCustomerId(),
+                    "Subscriptions for the same customer should share one customer ID string");
+        }
+        assertSame(results.get(0).getCustomerId(), byId.getCustomerId(),
+                "Repeated reads of the same customer should share one customer ID string");
+    }
+
+    @Test
+    void getSubscriptionsForCustomer_afterCreateSubscription_includesNewSubscription() {
+        // GIVEN - a customer with no subscriptions, who then subscribes
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+        Subscription newSubscription = Subscription.builder()
+                .withAsin(ASIN)
+                .withCustomerId(customerId)
+                .withFrequency(1)
+                .build();
+        assertTrue(subscriptionFileStorage.getSubscriptionsForCustomer(customerId).isEmpty(),
+                "Expected customer to start without subscriptions");
+        Subscription created = subscriptionFileStorage.createSubscription(newSubscription);
+
+        // WHEN - Get the customer's subscriptions
+        List<Subscription> results = subscriptionFileStorage.getSubscriptionsForCustomer(customerId);
+
+        // THEN - the new subscription is returned
+        assertEquals(1, results.size(), "Getting a customer's subscriptions should include newly created ones");
+        assertEquals(created.getId(), results.get(0).getId(),
+                "Getting a customer's subscriptions should include newly created ones");
+    }
+
+    @Test
+    void getSubscriptionsForCustomer_fileReplacedAfterWrite_indexRebuiltFromFile() {
+        // GIVEN - a customer with no subscriptions, who then subscribes
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+        Subscription newSubscription = Subscription.builder()
+                .withAsin(ASIN)
+                .withCustomerId(customerId)
+                .withFrequency(1)
+                .build();
+        subscriptionFileStorage.createSubscription(newSubscription);
+        assertEquals(1, subscriptionFileStorage.getSubscriptionsForCustomer(customerId).size(),
+                "Expected the new subscription to be indexed");
+
+        // WHEN - the file is replaced by something other than this storage, and the customer's subscriptions read
+        SubscriptionRestorer.restoreSubscriptions();
+        List<Subscription> results = subscriptionFileStorage.getSubscriptionsForCustomer(customerId);
+
+        // THEN - the index matches the replaced file
+        assertTrue(results.isEmpty(), "Getting a customer's subscriptions should reflect changes to the file");
+    }
+
+    @Test
+    void getSubscriptionsForCustomer_otherStorageAppendsDuringCreate_otherRecordIncluded() {
+        // GIVEN - storage whose first load is interleaved with a subscription created by another storage
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+        SubscriptionFileStorage otherStorage = new SubscriptionFileStorage(new File(TEST_FILE_PATH));
+        Subscription[] otherCreated = new Subscription[1];
+        subscriptionFileStorage = new SubscriptionFileStorage(new File(TEST_FILE_PATH), new SubscriptionMetrics() {
+            @Override
+            public void addBytesRead(long count) {
+                super.addBytesRead(count);
+                if (otherCreated[0] == null) {
+                    otherCreated[0] = otherStorage.createSubscription(subscription(customerId, ASIN));
+                }
+            }
+        });
+
+        // WHEN - create a subscription, then get the customer's subscriptions
+        Subscription created = subscriptionFileStorage.createSubscription(subscription(customerId, "B00006IEJB"));
+        List<Subscription> results = subscriptionFileStorage.getSubscriptionsForCustomer(customerId);
+
+        // THEN - both the other storage's subscription and this storage's are returned
+        assertNotNull(otherCreated[0], "Expected the other storage to write while this one was loading");
+        assertEquals(2, results.size(), "Getting a customer's subscriptions should include other writers' records");
+        assertTrue(results.stream().anyMatch(result -> result.getId().equals(otherCreated[0].getId())),
+                "Getting a customer's subscriptions should include the other storage's subscription");
+        assertTrue(results.stream().anyMatch(result -> result.getId().equals(created.getId())),
+                "Getting a customer's subscriptions should include this storage's subscription");
+    }
+
+    @Test
+    void getSubscriptionsForCustomer_fileRewrittenAtSameSizeAndTimeThenInvalidated_indexRebuiltFromFile()
+        throws Exception {
+        // GIVEN - an index loaded from the file
+        String customerId = "amzn1.account.AEZI3A09486461G3DRR0VQPQHQ9I";
+        Path path = Paths.get(TEST_FILE_PATH);
+        FileTime modifiedTime = FileTime.fromMillis(System.currentTimeMillis());
+        Files.setLastModifiedTime(path, modifiedTime);
+        subscriptionFileStorage.preload();
+
+        // WHEN - one of the customer's frequencies is rewritten without changing the file's size or modified time,
+        // the storage told so, and the customer's subscriptions read
+        String content = new String(Files.readAllBytes(path));
+        String record = "7c53f597-43c7-4ae3-b319-9e86f17ab0ba," + customerId + ",B072PR8QNN,";
+        Files.write(path, content.replace(record + "4", record + "5").getBytes());
+        Files.setLastModifiedTime(path, modifiedTime);
+        subscriptionFileStorage.invalidate();
+        List<Subscription> results = subscriptionFileStorage.getSubscriptionsForCustomer(customerId);
+
+        // THEN - the index matches the rewritten file
+        Subscription rewritten = results.stream()
+                .filter(result -> result.getId().equals("7c53f597-43c7-4ae3-b319-9e86f17ab0ba"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertEquals(5, rewritten.getFrequency(),
+                "Getting a customer's subscriptions should reflect a same-size rewrite of the file");
+    }
+
+    @Test
+    void getSubscriptionsForCustomer_afterOwnWrites_fileNotReread() {
+        // GIVEN - storage with its own metrics and a loaded index
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+        SubscriptionMetrics metrics = new SubscriptionMetrics();
+        subscriptionFileStorage = new SubscriptionFileStorage(new File(TEST_FILE_PATH), metrics);
+        subscriptionFileStorage.preload();
+        long bytesRead = metrics.getBytesRead();
+
+        // WHEN - create subscriptions and read them back straight away
+        subscriptionFileStorage.createSubscription(subscription(customerId, ASIN));
+        subscriptionFileStorage.createSubscription(subscription(customerId, "B00006IEJB"));
+        List<Subscription> results = subscriptionFileStorage.getSubscriptionsForCustomer(customerId);
+
+        // THEN - both are served from the index without reading the file again
+        assertEquals(2, results.size(), "Getting a customer's subscriptions should include newly created ones");
+        assertEquals(Long.valueOf(bytesRead), Long.valueOf(metrics.getBytesRead()),
+                "The storage's own writes should not make it read the file again");
+    }
+
   /*  @Test
     public void updateSubscription_withNullSubscription_throwIllegalArgumentException() {
     }
@@ -180,6 +422,55 @@ public class SubscriptionFileStorageTest {
 
 
 
+    @Test
+    void storageIo_recordedWithStorageConfiguration_jfrEventsEmitted() throws Exception {
+        // GIVEN - a flight recording using the storage configuration
+        Path recordingFile = Files.createTempFile("subscription-storage", ".jfr");
+        Map<String, RecordedEvent> lastEventByName = new HashMap<>();
+        try (Recording recording = new Recording(Configuration.create(Paths.get(JFR_CONFIGURATION_PATH)))) {
+            recording.start();
+
+            // WHEN - create a subscription, then read it back
+            Subscription subscription = subscriptionFileStorage.createSubscription(Subscription.builder()
+                .withAsin(ASIN)
+                .withCustomerId(CUSTOMER_ID)
+                .withFrequency(1)
+                .build());
+            subscriptionFileStorage.getSubscriptionById(subscription.getId());
+
+            recording.stop();
+            recording.dump(recordingFile);
+            for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+                lastEventByName.put(event.getEventType().getName(), event);
+            }
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+
+        // THEN - the load, parse and append are each recorded
+        RecordedEvent load = lastEventByName.get("com.amazon.ata.subscribeandsave.FileLoad");
+        RecordedEvent parse = lastEventByName.get("com.amazon.ata.subscribeandsave.RecordParse");
+        RecordedEvent append = lastEventByName.get("com.amazon.ata.subscribeandsave.FileAppend");
+        assertNotNull(load, "Expected a file load event");
+        assertNotNull(parse, "Expected a record parse event");
+        assertNotNull(append, "Expected a file append event");
+        // with the file path, record counts and bytes
+        assertEquals(new File(TEST_FILE_PATH).getPath(), load.getString("path"),
+                     "Expected load event to carry the subscriptions file path");
+        assertEquals(load.getInt("recordCount"), parse.getInt("recordCount"),
+                     "Expected every loaded line to be parsed");
+        assertEquals(1, append.getInt("recordCount"), "Expected append event to count the one new record");
+        assertTrue(append.getLong("bytes") > 0, "Expected append event to count the bytes written");
+    }
+
+    private static Subscription subscription(String customerId, String asin) {
+        return Subscription.builder()
+                .withAsin(asin)
+                .withCustomerId(customerId)
+                .withFrequency(1)
+                .build();
+    }
+
     @BeforeEach
     @AfterEach
     private void restoreSubscriptions() {
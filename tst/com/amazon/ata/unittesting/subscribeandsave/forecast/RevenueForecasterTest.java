@@ -0,0 +1,72 @@
+package com.amazon.ata.unittesting.subscribeandsave.forecast;
+
+import com.amazon.ata.unittesting.subscribeandsave.App;
+import com.amazon.ata.unittesting.subscribeandsave.test.util.SubscriptionRestorer;
+import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RevenueForecasterTest {
+
+    private RevenueForecaster revenueForecaster;
+
+    @BeforeEach
+    private void setupRevenueForecaster() {
+        revenueForecaster = new RevenueForecaster(App.getSubscriptionDAO(), App.getAmazonProductService());
+    }
+
+    @Test
+    void forecast_existingSubscriptions_annualRevenueWeightedByFrequency() {
+        // GIVEN - the existing subscriptions, including two Biolage subscriptions at $28.00 every 4 and 2 months
+
+        // WHEN - forecast revenue
+        RevenueForecast result = revenueForecaster.forecast();
+
+        // THEN
+        // each vendor's annual revenue is list price * 12 / frequency, summed over its subscriptions
+        assertEquals(0, new BigDecimal("252.00").compareTo(result.getAnnualRevenueByVendor().get("Biolage")),
+                     "Expected Biolage annual revenue to be 28.00 * 3 + 28.00 * 6");
+        assertEquals(0, new BigDecimal("364.32").compareTo(result.getAnnualRevenueByVendor().get("NatureWise")),
+                     "Expected NatureWise annual revenue to be 22.77 * 12 + 22.77 * 4");
+        // the total covers every vendor
+        assertEquals(0, new BigDecimal("750.65").compareTo(result.getTotalAnnualRevenue()),
+                     "Expected total annual revenue to sum every subscription");
+        // monthly revenue is a twelfth of annual revenue
+        assertEquals(new BigDecimal("21.00"), result.getMonthlyRevenueByVendor().get("Biolage"),
+                     "Expected Biolage monthly revenue to be a twelfth of its annual revenue");
+    }
+
+    @Test
+    void forecast_subscriptionForUnknownAsin_countedAsUnpriced() {
+        // GIVEN - a subscription for an ASIN missing from the catalog
+        List<Subscription> subscriptions = Arrays.asList(
+            Subscription.builder()
+                        .withCustomerId("amzn1.account.AEZI3A027560538W420H09ACTDP2")
+                        .withAsin("12345678")
+                        .withFrequency(1)
+                        .build());
+
+        // WHEN - forecast revenue
+        RevenueForecast result = revenueForecaster.forecast(subscriptions);
+
+        // THEN - it is left out of the totals and counted as unpriced
+        assertEquals(0, BigDecimal.ZERO.compareTo(result.getTotalAnnualRevenue()),
+                     "Expected subscriptions without a price to add no revenue");
+        assertEquals(1, result.getUnpricedSubscriptionCount(),
+                     "Expected subscriptions without a price to be counted as unpriced");
+    }
+
+    @BeforeEach
+    @AfterEach
+    private void restoreSubscriptions() {
+        SubscriptionRestorer.restoreSubscriptions();
+    }
+}
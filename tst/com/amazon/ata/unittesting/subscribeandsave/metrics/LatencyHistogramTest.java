@@ -0,0 +1,84 @@
+package com.amazon.ata.unittesting.subscribeandsave.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void snapshot_noValuesRecorded_allZero() {
+        // GIVEN - an empty histogram
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // WHEN - take a snapshot
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        // THEN - every figure is zero
+        assertEquals(0, snapshot.getCount(), "Expected no values to be counted");
+        assertEquals(0, snapshot.getMeanNanos(), "Expected mean of no values to be 0");
+        assertEquals(0, snapshot.getP99Nanos(), "Expected p99 of no values to be 0");
+        assertEquals(0, snapshot.getMaxNanos(), "Expected max of no values to be 0");
+    }
+
+    @Test
+    void snapshot_smallValues_reportedExactly() {
+        // GIVEN - values small enough to get a bucket each
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 0; nanos < 8; nanos++) {
+            histogram.record(nanos);
+        }
+
+        // WHEN - take a snapshot
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        // THEN - count, mean, median and max are exact
+        assertEquals(8, snapshot.getCount(), "Expected every value to be counted");
+        assertEquals(3, snapshot.getMeanNanos(), "Expected mean of 0..7 to be 3");
+        assertEquals(3, snapshot.getP50Nanos(), "Expected median of 0..7 to be 3");
+        assertEquals(7, snapshot.getMaxNanos(), "Expected max of 0..7 to be 7");
+    }
+
+    @Test
+    void snapshot_skewedValues_percentilesWithinBucketError() {
+        // GIVEN - 990 fast calls of 1 microsecond and 10 slow calls of 5 milliseconds
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.record(1_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5_000_000);
+        }
+
+        // WHEN - take a snapshot
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        // THEN - p50 and p90 reflect the fast calls, p99.9 the slow ones, each within 12.5%
+        assertWithinBucketError(1_000, snapshot.getP50Nanos(), "p50");
+        assertWithinBucketError(1_000, snapshot.getP90Nanos(), "p90");
+        assertWithinBucketError(1_000, snapshot.getP99Nanos(), "p99");
+        assertWithinBucketError(5_000_000, snapshot.getP999Nanos(), "p99.9");
+        // and max is exact
+        assertEquals(5_000_000, snapshot.getMaxNanos(), "Expected max to be the slowest value recorded");
+    }
+
+    @Test
+    void record_negativeValue_recordedAsZero() {
+        // GIVEN - an empty histogram
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // WHEN - record a negative latency
+        histogram.record(-5);
+
+        // THEN - it is counted as zero
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount(), "Expected negative value to be counted");
+        assertEquals(0, snapshot.getMaxNanos(), "Expected negative value to be recorded as 0");
+    }
+
+    private static void assertWithinBucketError(long expected, long actual, String percentile) {
+        assertTrue(actual >= expected && actual <= expected + expected / 8,
+                   String.format("Expected %s of %d to be within 12.5%% of %d", percentile, actual, expected));
+    }
+}
@@ -0,0 +1,77 @@
+package com.amazon.ata.unittesting.subscribeandsave.metrics;
+
+import com.amazon.ata.unittesting.subscribeandsave.types.RejectionReason;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class SubscriptionMetricsTest {
+
+    @Test
+    void recordLatency_differentOperations_trackedSeparately() {
+        // GIVEN - empty metrics
+        SubscriptionMetrics metrics = new SubscriptionMetrics();
+
+        // WHEN - record two loads and one create
+        metrics.recordLatency(Operation.LOAD, 100);
+        metrics.recordLatency(Operation.LOAD, 200);
+        metrics.recordLatency(Operation.CREATE, 300);
+
+        // THEN - each operation has its own histogram
+        assertEquals(2, metrics.getLatency(Operation.LOAD).getCount(), "Expected two LOAD latencies");
+        assertEquals(1, metrics.getLatency(Operation.CREATE).getCount(), "Expected one CREATE latency");
+        assertEquals(0, metrics.getLatency(Operation.UPDATE).getCount(), "Expected no UPDATE latencies");
+    }
+
+    @Test
+    void counters_added_sumsReturned() {
+        // GIVEN - empty metrics
+        SubscriptionMetrics metrics = new SubscriptionMetrics();
+
+        // WHEN - add to each counter
+        metrics.addRecordsScanned(10);
+        metrics.addRecordsScanned(5);
+        metrics.addBytesRead(1024);
+        metrics.addCoalescedRead();
+        metrics.recordRejection(RejectionReason.DUPLICATE);
+
+        // THEN - the totals are returned
+        assertEquals(15, metrics.getRecordsScanned(), "Expected records scanned to be summed");
+        assertEquals(1024, metrics.getBytesRead(), "Expected bytes read to be summed");
+        assertEquals(1, metrics.getCoalescedReads(), "Expected one coalesced read");
+        assertEquals(1, (long) metrics.getRejections().get("DUPLICATE"), "Expected one DUPLICATE rejection");
+    }
+
+    @Test
+    void registerMBean_registered_attributesReadableOverJmx() throws Exception {
+        // GIVEN - metrics with a recorded subscribe
+        SubscriptionMetrics metrics = new SubscriptionMetrics();
+        metrics.recordLatency(Operation.SUBSCRIBE, 1_000);
+        metrics.addRecordsScanned(42);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SubscriptionMetrics.OBJECT_NAME);
+
+        // WHEN - register with JMX
+        metrics.registerMBean();
+        try {
+            // THEN - counters are readable as attributes
+            assertEquals(42L, server.getAttribute(name, "RecordsScanned"), "Expected records scanned over JMX");
+            // and latencies are readable as tabular data keyed by operation
+            TabularData latencies = (TabularData) server.getAttribute(name, "Latencies");
+            CompositeData subscribe = (CompositeData) latencies.get(new Object[] {"SUBSCRIBE"}).get("value");
+            assertEquals(1L, subscribe.get("count"), "Expected one SUBSCRIBE latency over JMX");
+        } finally {
+            metrics.unregisterMBean();
+        }
+
+        assertFalse(server.isRegistered(name), "Expected metrics to be unregistered");
+    }
+}
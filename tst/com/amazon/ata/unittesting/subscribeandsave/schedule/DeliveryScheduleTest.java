@@ -0,0 +1,165 @@
+package com.amazon.ata.unittesting.subscribeandsave.schedule;
+
+import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeliveryScheduleTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2021, 1);
+
+    private DeliverySchedule deliverySchedule;
+
+    @BeforeEach
+    private void setupDeliverySchedule() {
+        deliverySchedule = new DeliverySchedule();
+    }
+
+    @Test
+    void getDueSubscriptions_scheduledSubscriptions_onlyThatMonthReturned() {
+        // GIVEN - subscriptions due in January and February
+        Subscription january = subscription("january", 1);
+        Subscription february = subscription("february", 1);
+        deliverySchedule.schedule(january, JANUARY);
+        deliverySchedule.schedule(february, JANUARY.plusMonths(1));
+
+        // WHEN - get the subscriptions due in January
+        List<Subscription> result = deliverySchedule.getDueSubscriptions(JANUARY);
+
+        // THEN - only the January subscription is returned
+        assertEquals(1, result.size(), "Expected only subscriptions due in the month to be returned");
+        assertEquals("january", result.get(0).getId(), "Expected the subscription due in the month to be returned");
+    }
+
+    @Test
+    void getDueSubscriptions_period_returnsSubscriptionsDueInEveryMonthOfPeriod() {
+        // GIVEN - subscriptions due in January, March and May
+        deliverySchedule.schedule(subscription("january", 1), JANUARY);
+        deliverySchedule.schedule(subscription("march", 1), JANUARY.plusMonths(2));
+        deliverySchedule.schedule(subscription("may", 1), JANUARY.plusMonths(4));
+
+        // WHEN - get the subscriptions due from January through March
+        List<Subscription> result = deliverySchedule.getDueSubscriptions(JANUARY, JANUARY.plusMonths(2));
+
+        // THEN - the January and March subscriptions are returned in month order
+        assertEquals(2, result.size(), "Expected subscriptions due within the period to be returned");
+        assertEquals("january", result.get(0).getId(), "Expected subscriptions to be ordered by month");
+        assertEquals("march", result.get(1).getId(), "Expected subscriptions to be ordered by month");
+    }
+
+    @Test
+    void dispatch_dueSubscription_rescheduledByFrequency() {
+        // GIVEN - a subscription delivered every 3 months, due in January
+        Subscription subscription = subscription("quarterly", 3);
+        deliverySchedule.schedule(subscription, JANUARY);
+
+        // WHEN - dispatch January
+        List<Subscription> dispatched = deliverySchedule.dispatch(JANUARY);
+
+        // THEN
+        // the subscription is dispatched
+        assertEquals(1, dispatched.size(), "Expected the subscription due in January to be dispatched");
+        // is no longer due in January
+        assertTrue(deliverySchedule.getDueSubscriptions(JANUARY).isEmpty(),
+                   "Expected a dispatched month to have no remaining deliveries");
+        // and is next due in April
+        assertEquals(1, deliverySchedule.getDueSubscriptions(JANUARY.plusMonths(3)).size(),
+                     "Expected the subscription to be rescheduled frequency months later");
+        assertEquals(1, deliverySchedule.size(), "Expected rescheduling not to change the number of deliveries");
+    }
+
+    @Test
+    void dispatch_nothingDue_returnsEmptyList() {
+        // GIVEN - an empty schedule
+
+        // WHEN - dispatch January
+        List<Subscription> dispatched = deliverySchedule.dispatch(JANUARY);
+
+        // THEN - nothing is dispatched
+        assertTrue(dispatched.isEmpty(), "Expected dispatching a month with no deliveries to return no subscriptions");
+    }
+
+    @Test
+    void schedule_invalidFrequency_throwsException() {
+        // GIVEN - a subscription with a frequency of 0
+        Subscription subscription = subscription("invalid", 0);
+
+        // WHEN - schedule the subscription
+        // THEN - Throw IllegalArgumentException
+        assertThrows(IllegalArgumentException.class,
+                     () -> deliverySchedule.schedule(subscription, JANUARY),
+                     "Expected scheduling a subscription with invalid frequency to throw exception");
+    }
+
+    @Test
+    void schedule_sameSubscriptionTwice_deliveryMoved() {
+        // GIVEN - a subscription scheduled for January
+        Subscription subscription = subscription("monthly", 1);
+        deliverySchedule.schedule(subscription, JANUARY);
+
+        // WHEN - schedule it again for March
+        deliverySchedule.schedule(subscription, JANUARY.plusMonths(2));
+
+        // THEN
+        // it is only due in March
+        assertTrue(deliverySchedule.getDueSubscriptions(JANUARY).isEmpty(),
+                   "Expected rescheduling to remove the earlier delivery");
+        assertEquals(JANUARY.plusMonths(2), deliverySchedule.getNextDelivery("monthly"),
+                     "Expected rescheduling to move the delivery");
+        assertEquals(1, deliverySchedule.size(), "Expected one delivery per subscription");
+        // and is dispatched once
+        assertEquals(1, deliverySchedule.dispatch(JANUARY.plusMonths(2)).size(),
+                     "Expected a rescheduled subscription to be dispatched once");
+    }
+
+    @Test
+    void unschedule_scheduledSubscription_noLongerDue() {
+        // GIVEN - a subscription scheduled for January
+        deliverySchedule.schedule(subscription("cancelled", 1), JANUARY);
+
+        // WHEN - unschedule it
+        boolean unscheduled = deliverySchedule.unschedule("cancelled");
+
+        // THEN - it is no longer due or dispatched
+        assertTrue(unscheduled, "Expected a scheduled subscription to be unscheduled");
+        assertTrue(deliverySchedule.dispatch(JANUARY).isEmpty(),
+                   "Expected an unscheduled subscription not to be dispatched");
+        assertNull(deliverySchedule.getNextDelivery("cancelled"), "Expected no next delivery once unscheduled");
+        assertEquals(0, deliverySchedule.size(), "Expected no deliveries once unscheduled");
+        assertFalse(deliverySchedule.unschedule("cancelled"), "Expected unscheduling twice to find nothing");
+    }
+
+    @Test
+    void getDueSubscriptions_nullOrInvertedPeriod_throwsException() {
+        // GIVEN - a scheduled subscription
+        deliverySchedule.schedule(subscription("monthly", 1), JANUARY);
+
+        // WHEN & THEN - periods with a missing bound, or ending before they start, are rejected
+        assertThrows(IllegalArgumentException.class, () -> deliverySchedule.getDueSubscriptions(null, JANUARY),
+                     "Expected a period without a first month to be rejected");
+        assertThrows(IllegalArgumentException.class, () -> deliverySchedule.getDueSubscriptions(JANUARY, null),
+                     "Expected a period without a last month to be rejected");
+        assertThrows(IllegalArgumentException.class,
+                     () -> deliverySchedule.getDueSubscriptions(JANUARY.plusMonths(1), JANUARY),
+                     "Expected a period ending before it starts to be rejected");
+    }
+
+    private Subscription subscription(String subscriptionId, int frequency) {
+        return Subscription.builder()
+                           .withSubscriptionId(subscriptionId)
+                           .withCustomerId("amzn1.account.AEZI3A027560538W420H09ACTDP2")
+                           .withAsin("B00006IEJB")
+                           .withFrequency(frequency)
+                           .build();
+    }
+}
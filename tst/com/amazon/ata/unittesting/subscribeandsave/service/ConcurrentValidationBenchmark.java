@@ -0,0 +1,122 @@
+package com.amazon.ata.unittesting.subscribeandsave.service;
+
+import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonIdentityService;
+import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonProductService;
+import com.amazon.ata.resources.debugging.classroom.dependencies.Eligibility;
+import com.amazon.ata.unittesting.subscribeandsave.App;
+import com.amazon.ata.unittesting.subscribeandsave.test.util.SubscriptionRestorer;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares subscribe latency with sequential and concurrent validation, against identity and product services
+ * that each add a fixed delay, as remote services would. Run from the project root after compiling the tests:
+ * <pre>
+ *     java ...service.ConcurrentValidationBenchmark [delayMillis] [requests]
+ * </pre>
+ * Every request is for the same customer and ASIN, so after the first each one is validated and then rejected as
+ * a duplicate; the subscriptions file is restored afterwards.
+ */
+public class ConcurrentValidationBenchmark {
+
+    private static final String CUSTOMER_ID = "amzn1.account.AEZI3A027560538W420H09ACTDP2";
+    private static final String ASIN = "B00006IEJB";
+    private static final int WARM_UP_REQUESTS = 5;
+
+    private ConcurrentValidationBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the mean subscribe latency of each mode.
+     *
+     * @param args the delay each stand-in adds in milliseconds (default 20), then how many requests to time in
+     *             each mode (default 50)
+     */
+    public static void main(String[] args) {
+        long delayMillis = args.length > 0 ? Long.parseLong(args[0]) : 20;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        AmazonIdentityService identityService = new DelayedIdentityService(delayMillis);
+        AmazonProductService productService = new DelayedProductService(delayMillis);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            SubscriptionService sequential = SubscriptionService.builder()
+                .withIdentityService(identityService)
+                .withProductService(productService)
+                .withSubscriptionDAO(App.getSubscriptionDAO())
+                .build();
+            SubscriptionService concurrent = SubscriptionService.builder()
+                .withIdentityService(identityService)
+                .withProductService(productService)
+                .withSubscriptionDAO(App.getSubscriptionDAO())
+                .withValidationExecutor(executor, Duration.ofSeconds(10))
+                .build();
+
+            System.out.printf("stand-in delay %d ms, %d requests per mode%n", delayMillis, requests);
+            System.out.printf("sequential: %.1f ms per subscribe%n", meanMillis(sequential, requests));
+            System.out.printf("concurrent: %.1f ms per subscribe%n", meanMillis(concurrent, requests));
+        } finally {
+            executor.shutdownNow();
+            SubscriptionRestorer.restoreSubscriptions();
+        }
+    }
+
+    private static double meanMillis(SubscriptionService service, int requests) {
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            service.trySubscribe(CUSTOMER_ID, ASIN, 1);
+        }
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            service.trySubscribe(CUSTOMER_ID, ASIN, 1);
+        }
+        return (System.nanoTime() - startNanos) / 1e6 / requests;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Local stand-in for a remote identity service, adding a fixed delay to every validation.
+     */
+    private static class DelayedIdentityService extends AmazonIdentityService {
+        private final long delayMillis;
+
+        DelayedIdentityService(long delayMillis) {
+            super(Paths.get(App.DATA_FILE_ROOT_PATH, "customers.txt").toFile());
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public boolean validateCustomer(String customerId) {
+            sleep(delayMillis);
+            return super.validateCustomer(customerId);
+        }
+    }
+
+    /**
+     * Local stand-in for a remote product service, adding a fixed delay to every lookup.
+     */
+    private static class DelayedProductService extends AmazonProductService {
+        private final long delayMillis;
+
+        DelayedProductService(long delayMillis) {
+            super(Paths.get(App.DATA_FILE_ROOT_PATH, "catalog.json").toFile());
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public Eligibility checkEligibility(String asin) {
+            sleep(delayMillis);
+            return super.checkEligibility(asin);
+        }
+    }
+}
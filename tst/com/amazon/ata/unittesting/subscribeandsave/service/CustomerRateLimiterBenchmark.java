@@ -0,0 +1,83 @@
+package com.amazon.ata.unittesting.subscribeandsave.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead {@code CustomerRateLimiter} adds to each call, and how the sweep of idle customers is
+ * spread over calls. Run from the project root after compiling the tests:
+ * <pre>
+ *     java ...service.CustomerRateLimiterBenchmark [idleCustomers]
+ * </pre>
+ * Each round prints the mean cost of {@code tryAcquire()} for a customer under its limit, then fills the limiter
+ * with idle customers, lets the sweep come due, and reports the slowest single call and how many calls the sweep
+ * took to finish. Later rounds show the figures once the JIT has compiled the limiter.
+ */
+public class CustomerRateLimiterBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final int HOT_PATH_CALLS = 20_000_000;
+    private static final int MAX_SWEEP_CALLS = 1_000_000;
+
+    private static long nowNanos;
+
+    private CustomerRateLimiterBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the results of each round.
+     *
+     * @param args how many idle customers to sweep (default 1,000,000)
+     */
+    public static void main(String[] args) {
+        int idleCustomers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.printf("round %d: tryAcquire %.1f ns per call; ", round, hotPathNanos());
+            sweep(idleCustomers);
+        }
+    }
+
+    private static double hotPathNanos() {
+        // a capacity no customer can use up, so every call takes the allow path
+        CustomerRateLimiter rateLimiter =
+            new CustomerRateLimiter(Integer.MAX_VALUE, Duration.ofNanos(1), Duration.ofMinutes(1));
+        int allowed = 0;
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < HOT_PATH_CALLS; i++) {
+            if (rateLimiter.tryAcquire("amzn1.account.AEZI3A027560538W420H09ACTDP2")) {
+                allowed++;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (allowed != HOT_PATH_CALLS) {
+            throw new IllegalStateException("Expected every call to be allowed, but " + allowed + " were");
+        }
+
+        return (double) elapsedNanos / HOT_PATH_CALLS;
+    }
+
+    private static void sweep(int idleCustomers) {
+        Duration sweepInterval = Duration.ofMinutes(1);
+        nowNanos = 0;
+        CustomerRateLimiter rateLimiter =
+            new CustomerRateLimiter(1, Duration.ofSeconds(1), sweepInterval, () -> nowNanos);
+        for (int i = 0; i < idleCustomers; i++) {
+            rateLimiter.tryAcquire("customer" + i);
+        }
+
+        // every bucket has long since refilled, so the next sweep can drop them all
+        nowNanos += sweepInterval.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        long slowestNanos = 0;
+        int calls = 0;
+        while (rateLimiter.getTrackedCustomerCount() > 1 && calls < MAX_SWEEP_CALLS) {
+            long startNanos = System.nanoTime();
+            rateLimiter.tryAcquire("active customer");
+            slowestNanos = Math.max(slowestNanos, System.nanoTime() - startNanos);
+            calls++;
+            nowNanos += TimeUnit.MICROSECONDS.toNanos(1);
+        }
+
+        System.out.printf("sweep of %,d idle customers: %,d calls, slowest %.3f ms%n",
+                          idleCustomers, calls, slowestNanos / 1e6);
+    }
+}
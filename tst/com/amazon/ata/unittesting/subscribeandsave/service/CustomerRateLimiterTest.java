@@ -0,0 +1,106 @@
+package com.amazon.ata.unittesting.subscribeandsave.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomerRateLimiterTest {
+
+    private static final String CUSTOMER_ID = "amzn1.account.AEZI3A027560538W420H09ACTDP2";
+    private static final String CUSTOMER_ID_2 = "amzn1.account.AEZI3A063427738YROOFT8WCXKDE";
+
+    private long nowNanos;
+    private CustomerRateLimiter rateLimiter;
+
+    @BeforeEach
+    private void setupRateLimiter() {
+        nowNanos = 0;
+        rateLimiter = new CustomerRateLimiter(2, Duration.ofSeconds(1), Duration.ofMinutes(1), () -> nowNanos);
+    }
+
+    @Test
+    void tryAcquire_withinCapacity_allowed() {
+        // GIVEN - a customer with a full bucket of 2 tokens
+
+        // WHEN & THEN - 2 calls in a burst are allowed, the third is not
+        assertTrue(rateLimiter.tryAcquire(CUSTOMER_ID), "Expected first call within capacity to be allowed");
+        assertTrue(rateLimiter.tryAcquire(CUSTOMER_ID), "Expected second call within capacity to be allowed");
+        assertFalse(rateLimiter.tryAcquire(CUSTOMER_ID), "Expected call over capacity to be rejected");
+    }
+
+    @Test
+    void tryAcquire_afterRefillInterval_allowedAgain() {
+        // GIVEN - a customer who has used up their bucket
+        rateLimiter.tryAcquire(CUSTOMER_ID);
+        rateLimiter.tryAcquire(CUSTOMER_ID);
+
+        // WHEN - one refill interval passes
+        nowNanos += TimeUnit.SECONDS.toNanos(1);
+
+        // THEN - exactly one more call is allowed
+        assertTrue(rateLimiter.tryAcquire(CUSTOMER_ID), "Expected call after refill to be allowed");
+        assertFalse(rateLimiter.tryAcquire(CUSTOMER_ID), "Expected only one token to be refilled");
+    }
+
+    @Test
+    void tryAcquire_differentCustomers_limitedIndependently() {
+        // GIVEN - a customer who has used up their bucket
+        rateLimiter.tryAcquire(CUSTOMER_ID);
+        rateLimiter.tryAcquire(CUSTOMER_ID);
+
+        // WHEN & THEN - another customer is still allowed
+        assertTrue(rateLimiter.tryAcquire(CUSTOMER_ID_2), "Expected another customer to have their own bucket");
+    }
+
+    @Test
+    void tryAcquire_afterSweepInterval_idleBucketsDropped() {
+        // GIVEN - two customers who have each made a call
+        rateLimiter.tryAcquire(CUSTOMER_ID);
+        rateLimiter.tryAcquire(CUSTOMER_ID_2);
+
+        // WHEN - the sweep interval passes and one customer calls again
+        nowNanos += TimeUnit.MINUTES.toNanos(1);
+        rateLimiter.tryAcquire(CUSTOMER_ID);
+
+        // THEN - only the active customer's bucket is kept
+        assertEquals(1, rateLimiter.getTrackedCustomerCount(), "Expected idle customer buckets to be dropped");
+    }
+
+    @Test
+    void tryAcquire_manyIdleCustomers_sweepSpreadOverCalls() {
+        // GIVEN - many more idle customers than one call sweeps
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.tryAcquire("customer" + i);
+        }
+
+        // WHEN - the sweep interval passes and an active customer keeps calling
+        nowNanos += TimeUnit.MINUTES.toNanos(1);
+        rateLimiter.tryAcquire(CUSTOMER_ID);
+        int trackedAfterOneCall = rateLimiter.getTrackedCustomerCount();
+        for (int i = 0; i < 100; i++) {
+            nowNanos += TimeUnit.SECONDS.toNanos(1);
+            rateLimiter.tryAcquire(CUSTOMER_ID);
+        }
+
+        // THEN - one call only sweeps part of the map, and later calls finish the sweep
+        assertTrue(trackedAfterOneCall > 1, "Expected a single call not to sweep every customer");
+        assertEquals(1, rateLimiter.getTrackedCustomerCount(), "Expected idle customer buckets to be dropped");
+    }
+
+    @Test
+    void constructor_zeroSweepInterval_exceptionOccurs() {
+        // GIVEN - a sweep interval of zero
+
+        // WHEN & THEN - the rate limiter is rejected
+        assertThrows(IllegalArgumentException.class,
+            () -> new CustomerRateLimiter(2, Duration.ofSeconds(1), Duration.ZERO, () -> nowNanos),
+            "Expected a zero sweep interval to be rejected");
+    }
+}
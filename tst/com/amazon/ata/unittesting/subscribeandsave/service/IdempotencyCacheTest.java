@@ -0,0 +1,118 @@
+package com.amazon.ata.unittesting.subscribeandsave.service;
+
+import com.amazon.ata.unittesting.subscribeandsave.types.RejectionReason;
+import com.amazon.ata.unittesting.subscribeandsave.types.SubscribeRequest;
+import com.amazon.ata.unittesting.subscribeandsave.types.SubscribeResult;
+import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class IdempotencyCacheTest {
+
+    private static final String IDEMPOTENCY_KEY = "retry-key";
+
+    private IdempotencyCache idempotencyCache;
+    private AtomicInteger workCount;
+
+    @BeforeEach
+    private void setupIdempotencyCache() {
+        idempotencyCache = new IdempotencyCache(100, Duration.ofMinutes(1));
+        workCount = new AtomicInteger();
+    }
+
+    @Test
+    void getOrCompute_repeatedKey_originalResultReturned() {
+        // GIVEN - a key whose work has already succeeded
+        SubscribeResult original = idempotencyCache.getOrCompute(IDEMPOTENCY_KEY, this::successfulWork);
+
+        // WHEN - the same key is used again
+        SubscribeResult result = idempotencyCache.getOrCompute(IDEMPOTENCY_KEY, this::successfulWork);
+
+        // THEN - the original result is returned without doing the work again
+        assertSame(original, result, "Expected a repeated key to return the original result");
+        assertEquals(1, workCount.get(), "Expected the work for a key to be done only once");
+    }
+
+    @Test
+    void getOrCompute_rejectedResult_notKept() {
+        // GIVEN - a key whose work was rejected
+        idempotencyCache.getOrCompute(IDEMPOTENCY_KEY, () -> {
+            workCount.incrementAndGet();
+            return SubscribeResult.rejected(request(), RejectionReason.UNKNOWN_ASIN);
+        });
+
+        // WHEN - the same key is used again
+        idempotencyCache.getOrCompute(IDEMPOTENCY_KEY, this::successfulWork);
+
+        // THEN - the work is done again
+        assertEquals(2, workCount.get(), "Expected a rejected result not to be kept for its key");
+    }
+
+    @Test
+    void getOrCompute_concurrentDuplicate_waitsForInFlightResult() throws Exception {
+        // GIVEN - work for a key that is still in flight
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<SubscribeResult> first = executor.submit(() ->
+                idempotencyCache.getOrCompute(IDEMPOTENCY_KEY, () -> {
+                    started.countDown();
+                    awaitQuietly(release);
+                    return successfulWork();
+                }));
+            started.await(5, TimeUnit.SECONDS);
+
+            // WHEN - a duplicate call for the same key arrives, and the first call then completes
+            Future<SubscribeResult> duplicate = executor.submit(() ->
+                idempotencyCache.getOrCompute(IDEMPOTENCY_KEY, this::successfulWork));
+            release.countDown();
+
+            // THEN - both calls get the same result, and the work is done once
+            assertSame(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS),
+                       "Expected a concurrent duplicate to receive the in-flight result");
+            assertEquals(1, workCount.get(), "Expected concurrent duplicates to do the work only once");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SubscribeResult successfulWork() {
+        workCount.incrementAndGet();
+        return SubscribeResult.success(request(), Subscription.builder()
+                                                              .withSubscriptionId("subscription-id")
+                                                              .withCustomerId(request().getCustomerId())
+                                                              .withAsin(request().getAsin())
+                                                              .withFrequency(request().getFrequency())
+                                                              .build());
+    }
+
+    private SubscribeRequest request() {
+        return SubscribeRequest.builder()
+                               .withCustomerId("amzn1.account.AEZI3A027560538W420H09ACTDP2")
+                               .withAsin("B00006IEJB")
+                               .withFrequency(1)
+                               .build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
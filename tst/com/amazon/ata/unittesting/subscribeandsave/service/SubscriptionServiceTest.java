@@ -1,21 +1,48 @@
 package com.amazon.ata.unittesting.subscribeandsave.service;
 
+import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonIdentityService;
+import com.amazon.ata.resources.debugging.classroom.dependencies.AmazonProductService;
+import com.amazon.ata.resources.debugging.classroom.dependencies.Eligibility;
 import com.amazon.ata.unittesting.subscribeandsave.App;
 import com.amazon.ata.unittesting.subscribeandsave.dao.StorageException;
+import com.amazon.ata.unittesting.subscribeandsave.metrics.Operation;
+import com.amazon.ata.unittesting.subscribeandsave.metrics.SubscriptionMetrics;
+import com.amazon.ata.unittesting.subscribeandsave.schedule.DeliverySchedule;
 import com.amazon.ata.unittesting.subscribeandsave.test.util.SubscriptionRestorer;
+import com.amazon.ata.unittesting.subscribeandsave.types.RejectionReason;
+import com.amazon.ata.unittesting.subscribeandsave.types.SubscribeRequest;
+import com.amazon.ata.unittesting.subscribeandsave.types.SubscribeResult;
 import com.amazon.ata.unittesting.subscribeandsave.types.Subscription;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class SubscriptionServiceTest {
+    private static final long RENDEZVOUS_TIMEOUT_SECONDS = 5;
+
     private SubscriptionService subscriptionService;
 
     @BeforeEach
@@ -62,6 +89,35 @@ public class SubscriptionServiceTest {
         assertNull(result, "Expected result of getting a non-existing subscription ID to be null");
     }
 
+    // getSubscriptionsForCustomer():
+
+    @Test
+    void getSubscriptionsForCustomer_afterSubscribe_newSubscriptionReturned() {
+        // GIVEN - a customer who subscribes to a product
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+        Subscription newSubscription = subscriptionService.subscribe(customerId, "B00ILBUEVK", 1);
+
+        // WHEN - get the customer's subscriptions
+        List<Subscription> results = subscriptionService.getSubscriptionsForCustomer(customerId);
+
+        // THEN - the new subscription is returned
+        assertEquals(1, results.size(), "Expected the customer's only subscription to be returned");
+        assertEquals(newSubscription.getId(), results.get(0).getId(),
+                     "Expected the customer's new subscription to be returned");
+    }
+
+    @Test
+    void getSubscriptionsForCustomer_blankCustomerId_exceptionOccurs() {
+        // GIVEN - a blank customer ID
+        String customerId = " ";
+
+        // WHEN - get the customer's subscriptions
+        // THEN - Throw IllegalArgumentException
+        assertThrows(IllegalArgumentException.class,
+                     () -> subscriptionService.getSubscriptionsForCustomer(customerId),
+                     "Expected getting subscriptions for a blank customer ID to result in exception");
+    }
+
     // subscribe():
 
     @Test
@@ -177,9 +233,426 @@ public class SubscriptionServiceTest {
         );
     }
 
+    // trySubscribe():
+
+    @Test
+    void trySubscribe_newSubscription_successfulResultReturned() {
+        // GIVEN - a valid customer, ASIN and frequency
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+        String asin = "B00ILBUEVK";
+        int frequency = 1;
+
+        // WHEN - try to create a new subscription
+        SubscribeResult result = subscriptionService.trySubscribe(customerId, asin, frequency);
+
+        // THEN
+        // the result is successful
+        assertTrue(result.isSuccessful(), "Expected trySubscribe for a valid request to succeed");
+        // and holds the new subscription
+        assertNotNull(result.getSubscription().getId(), "Expected successful result to hold a Subscription with ID");
+        // with no rejection details
+        assertNull(result.getRejectionReason(), "Expected successful result to have no rejection reason");
+        assertNull(result.getErrorMessage(), "Expected successful result to have no error message");
+    }
+
+    @Test
+    void trySubscribe_invalidRequests_rejectedWithMatchingReason() {
+        // GIVEN - a valid customer and ASIN
+        String customerId = "amzn1.account.AEZI3A027560538W420H09ACTDP2";
+        String asin = "B00006IEJB";
+
+        // WHEN - try to create subscriptions with one invalid input each
+        // THEN - each is rejected with the matching reason
+        assertEquals(RejectionReason.BLANK_INPUT,
+                     subscriptionService.trySubscribe(" ", asin, 1).getRejectionReason(),
+                     "Expected blank customer ID to be rejected as BLANK_INPUT");
+        assertEquals(RejectionReason.BAD_FREQUENCY,
+                     subscriptionService.trySubscribe(customerId, asin, 7).getRejectionReason(),
+                     "Expected out of range frequency to be rejected as BAD_FREQUENCY");
+        assertEquals(RejectionReason.UNKNOWN_CUSTOMER,
+                     subscriptionService.trySubscribe("12345678", asin, 1).getRejectionReason(),
+                     "Expected unknown customer to be rejected as UNKNOWN_CUSTOMER");
+        assertEquals(RejectionReason.UNKNOWN_ASIN,
+                     subscriptionService.trySubscribe(customerId, "12345678", 1).getRejectionReason(),
+                     "Expected unknown ASIN to be rejected as UNKNOWN_ASIN");
+        assertEquals(RejectionReason.NOT_SNS,
+                     subscriptionService.trySubscribe(customerId, "B07R5QD598", 1).getRejectionReason(),
+                     "Expected unsubscribable ASIN to be rejected as NOT_SNS");
+        assertEquals(RejectionReason.DUPLICATE,
+                     subscriptionService.trySubscribe(customerId, asin, 1).getRejectionReason(),
+                     "Expected existing customer/ASIN pair to be rejected as DUPLICATE");
+    }
+
+    @Test
+    void trySubscribe_unknownAsin_errorMessageMentionsAsin() {
+        // GIVEN - a valid customer and an unknown ASIN
+        String customerId = "amzn1.account.AEZI3A027560538W420H09ACTDP2";
+        String asin = "12345678";
+
+        // WHEN - try to create a new subscription
+        SubscribeResult result = subscriptionService.trySubscribe(customerId, asin, 1);
+
+        // THEN - the error message describes the unknown ASIN
+        assertTrue(result.getErrorMessage().contains(asin), "Expected error message to include the unknown ASIN");
+    }
+
+    // subscribe() with a rate limiter:
+
+    @Test
+    void trySubscribe_customerOverRateLimit_rejectedAsRateLimited() {
+        // GIVEN - a service that allows each customer a single subscribe call
+        SubscriptionService rateLimitedService = SubscriptionService.builder()
+            .withIdentityService(App.getAmazonIdentityService())
+            .withProductService(App.getAmazonProductService())
+            .withSubscriptionDAO(App.getSubscriptionDAO())
+            .withRateLimiter(new CustomerRateLimiter(1, Duration.ofMinutes(1), Duration.ofMinutes(1)))
+            .build();
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+        rateLimitedService.trySubscribe(customerId, "B00ILBUEVK", 1);
+
+        // WHEN - the customer subscribes again
+        SubscribeResult result = rateLimitedService.trySubscribe(customerId, "B01BMDAVIY", 1);
+
+        // THEN - the request is rejected as rate limited
+        assertEquals(RejectionReason.RATE_LIMITED, result.getRejectionReason(),
+                     "Expected call over the rate limit to be rejected as RATE_LIMITED");
+        assertThrows(RateLimitExceededException.class,
+                     () -> rateLimitedService.subscribe(customerId, "B01BMDAVIY", 1),
+                     "Expected subscribe over the rate limit to throw exception");
+    }
+
+    // subscribe() with metrics:
+
+    @Test
+    void trySubscribe_withMetrics_latencyAndRejectionsRecorded() {
+        // GIVEN - a service recording to its own metrics
+        SubscriptionMetrics metrics = new SubscriptionMetrics();
+        SubscriptionService measuredService = SubscriptionService.builder()
+            .withIdentityService(App.getAmazonIdentityService())
+            .withProductService(App.getAmazonProductService())
+            .withSubscriptionDAO(App.getSubscriptionDAO())
+            .withMetrics(metrics)
+            .build();
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+
+        // WHEN - one request succeeds and two are rejected
+        measuredService.trySubscribe(customerId, "B00ILBUEVK", 1);
+        measuredService.trySubscribe(customerId, "B072PR8QNN", 1);
+        measuredService.trySubscribe(customerId, "", 1);
+
+        // THEN - every call is timed
+        assertEquals(3, metrics.getLatency(Operation.SUBSCRIBE).getCount(),
+                     "Expected every subscribe call to be timed");
+        // and each rejection is counted against its reason
+        assertEquals(1, metrics.getRejections(RejectionReason.NOT_SNS), "Expected one NOT_SNS rejection");
+        assertEquals(1, metrics.getRejections(RejectionReason.BLANK_INPUT), "Expected one BLANK_INPUT rejection");
+        assertEquals(0, metrics.getRejections(RejectionReason.DUPLICATE), "Expected no DUPLICATE rejections");
+    }
+
+    // subscribe() with an idempotency key:
+
+    @Test
+    void subscribe_retriedWithSameIdempotencyKey_originalSubscriptionReturned() {
+        // GIVEN - a subscription created with an idempotency key
+        SubscriptionService idempotentService = idempotentService();
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+        String asin = "B00ILBUEVK";
+        Subscription original = idempotentService.subscribe(customerId, asin, 1, "retry-key");
+
+        // WHEN - the same call is retried
+        Subscription result = idempotentService.subscribe(customerId, asin, 1, "retry-key");
+
+        // THEN - the original subscription is returned instead of a duplicate error
+        assertEquals(original.getId(), result.getId(), "Expected a retried call to return the original subscription");
+    }
+
+    @Test
+    void subscribe_idempotencyKeyReusedForDifferentRequest_throwsException() {
+        // GIVEN - a subscription created with an idempotency key
+        SubscriptionService idempotentService = idempotentService();
+        String customerId = "amzn1.account.AEZR3A02756837HDND93HDN93112";
+        idempotentService.subscribe(customerId, "B00ILBUEVK", 1, "retry-key");
+
+        // WHEN - the key is used for a different ASIN
+        // THEN - Throw IllegalArgumentException
+        assertThrows(IllegalArgumentException.class,
+                     () -> idempotentService.subscribe(customerId, "B01BMDAVIY", 1, "retry-key"),
+                     "Expected reusing an idempotency key for a different request to throw exception");
+    }
+
+    private SubscriptionService idempotentService() {
+        return SubscriptionService.builder()
+            .withIdentityService(App.getAmazonIdentityService())
+            .withProductService(App.getAmazonProductService())
+            .withSubscriptionDAO(App.getSubscriptionDAO())
+            .withIdempotencyCache(new IdempotencyCache(100, Duration.ofMinutes(1)))
+            .build();
+    }
+
+    // subscribe() with a validation executor:
+
+    @Test
+    void subscribe_withValidationExecutor_validatesCustomerAndProductConcurrently() {
+        // GIVEN
+        // identity and product services that each wait for the other's lookup to start before answering
+        CyclicBarrier bothInFlight = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        SubscriptionService concurrentService = SubscriptionService.builder()
+            .withIdentityService(new RendezvousIdentityService(bothInFlight))
+            .withProductService(new RendezvousProductService(bothInFlight))
+            .withSubscriptionDAO(App.getSubscriptionDAO())
+            .withValidationExecutor(executor, Duration.ofSeconds(2 * RENDEZVOUS_TIMEOUT_SECONDS))
+            .build();
+
+        try {
+            // WHEN - create a new subscription
+            Subscription result = concurrentService.subscribe("amzn1.account.AEZR3A02756837HDND93HDN93112",
+                                                              "B00ILBUEVK",
+                                                              1);
+
+            // THEN - the subscription is created, which is only possible if both lookups were in flight at once
+            assertNotNull(result.getId(), "Creating new subscription should return Subscription with ID");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void subscribe_withValidationExecutorAndUnknownAsin_failsWithoutWaitingForCustomerCheck() {
+        // GIVEN
+        // a slow identity service and an unknown ASIN
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        SubscriptionService concurrentService = SubscriptionService.builder()
+            .withIdentityService(new DelayedIdentityService(TimeUnit.MINUTES.toMillis(1)))
+            .withProductService(App.getAmazonProductService())
+            .withSubscriptionDAO(App.getSubscriptionDAO())
+            .withValidationExecutor(executor, Duration.ofMinutes(2))
+            .build();
+
+        try {
+            // WHEN - Try to create a new subscription
+            // THEN - Throw IllegalArgumentException as soon as the product check fails
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> concurrentService.subscribe("amzn1.account.AEZI3A027560538W420H09ACTDP2", "12345678", 1),
+                "Expected subscribing with invalid ASIN to result in exception");
+            assertTrue(e.getMessage().contains("ASIN"), "Expected exception message to mention the ASIN");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void subscribe_withValidationExecutorAndSlowDependency_timesOut() {
+        // GIVEN
+        // a slow identity service and a short validation timeout
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        SubscriptionService concurrentService = SubscriptionService.builder()
+            .withIdentityService(new DelayedIdentityService(TimeUnit.MINUTES.toMillis(1)))
+            .withProductService(App.getAmazonProductService())
+            .withSubscriptionDAO(App.getSubscriptionDAO())
+            .withValidationExecutor(executor, Duration.ofMillis(50))
+            .build();
+
+        try {
+            // WHEN - Try to create a new subscription
+            // THEN - Throw IllegalStateException once the timeout elapses
+            assertThrows(IllegalStateException.class,
+                () -> concurrentService.subscribe("amzn1.account.AEZI3A027560538W420H09ACTDP2", "B00006IEJB", 1),
+                "Expected validation exceeding the timeout to result in exception");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void build_withValidationExecutorAndZeroTimeout_exceptionOccurs() {
+        // GIVEN - a validation executor and a timeout no validation could meet
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // WHEN & THEN - building the service fails
+            assertThrows(IllegalArgumentException.class, () -> SubscriptionService.builder()
+                    .withIdentityService(App.getAmazonIdentityService())
+                    .withProductService(App.getAmazonProductService())
+                    .withSubscriptionDAO(App.getSubscriptionDAO())
+                    .withValidationExecutor(executor, Duration.ZERO)
+                    .build(),
+                "Expected a zero validation timeout to be rejected");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // subscribe() with a delivery schedule:
+
+    @Test
+    void subscribe_withDeliverySchedule_firstDeliveryScheduledThisMonth() {
+        // GIVEN - a service that schedules deliveries, with a clock in March 2024
+        DeliverySchedule deliverySchedule = new DeliverySchedule();
+        Clock clock = Clock.fixed(Instant.parse("2024-03-15T12:00:00Z"), ZoneOffset.UTC);
+        SubscriptionService service = SubscriptionService.builder()
+            .withIdentityService(App.getAmazonIdentityService())
+            .withProductService(App.getAmazonProductService())
+            .withSubscriptionDAO(App.getSubscriptionDAO())
+            .withDeliverySchedule(deliverySchedule, clock)
+            .build();
+
+        // WHEN - subscribe
+        Subscription created = service.subscribe("amzn1.account.AEZR3A02756837HDND93HDN93112", "B00ILBUEVK", 2);
+
+        // THEN - the first delivery is due in March 2024
+        assertEquals(YearMonth.of(2024, 3), deliverySchedule.getNextDelivery(created.getId()),
+                     "Expected first delivery to be scheduled in the month the subscription was created");
+        assertEquals(1, deliverySchedule.size(), "Expected only the new subscription to be scheduled");
+    }
+
+    @Test
+    void build_withDeliveryScheduleAndNoClock_exceptionOccurs() {
+        // GIVEN - a delivery schedule without a clock
+        // WHEN & THEN - building the service fails
+        assertThrows(IllegalArgumentException.class, () -> SubscriptionService.builder()
+                .withIdentityService(App.getAmazonIdentityService())
+                .withProductService(App.getAmazonProductService())
+                .withSubscriptionDAO(App.getSubscriptionDAO())
+                .withDeliverySchedule(new DeliverySchedule(), null)
+                .build(),
+            "Expected a delivery schedule without a clock to be rejected");
+    }
+
+    // subscribeAll():
+
+    @Test
+    void subscribeAll_mixedRequests_returnsResultPerRequestInOrder() {
+        // GIVEN
+        // a valid request, a request for an unknown customer, and a request for an unsubscribable ASIN
+        List<SubscribeRequest> requests = Arrays.asList(
+            subscribeRequest("amzn1.account.AEZR3A02756837HDND93HDN93112", "B00ILBUEVK", 1),
+            subscribeRequest("12345678", "B00006IEJB", 1),
+            subscribeRequest("amzn1.account.AEZI3A027560538W420H09ACTDP2", "B07R5QD598", 1)
+        );
+
+        // WHEN - subscribe all of them
+        List<SubscribeResult> results = subscriptionService.subscribeAll(requests);
+
+        // THEN
+        // there is one result per request
+        assertEquals(requests.size(), results.size(), "Expected one result per subscribe request");
+        // the valid request succeeded and was stored
+        assertTrue(results.get(0).isSuccessful(), "Expected valid subscribe request to succeed");
+        assertEquals(results.get(0).getSubscription().getId(),
+                     subscriptionService.getSubscription(results.get(0).getSubscription().getId()).getId(),
+                     "Expected subscription created by subscribeAll to be stored");
+        // the invalid requests were rejected with the matching reasons
+        assertEquals(RejectionReason.UNKNOWN_CUSTOMER, results.get(1).getRejectionReason(),
+                     "Expected unknown customer to be rejected as UNKNOWN_CUSTOMER");
+        assertEquals(RejectionReason.NOT_SNS, results.get(2).getRejectionReason(),
+                     "Expected unsubscribable ASIN to be rejected as NOT_SNS");
+    }
+
+    @Test
+    void subscribeAll_duplicateWithinBatch_onlyFirstSucceeds() {
+        // GIVEN - two requests for the same customer/ASIN pair
+        String customerId = "amzn1.account.AEZI3AHHDGUJ43KCFVME2OQAU4GB";
+        String asin = "B01BMDAVIY";
+        List<SubscribeRequest> requests = Arrays.asList(
+            subscribeRequest(customerId, asin, 1),
+            subscribeRequest(customerId, asin, 2)
+        );
+
+        // WHEN - subscribe all of them
+        List<SubscribeResult> results = subscriptionService.subscribeAll(requests);
+
+        // THEN
+        // the first request succeeds
+        assertTrue(results.get(0).isSuccessful(), "Expected first request for customer/ASIN pair to succeed");
+        // the duplicate is rejected
+        assertEquals(RejectionReason.DUPLICATE, results.get(1).getRejectionReason(),
+                     "Expected duplicate request in the same batch to be rejected as DUPLICATE");
+    }
+
+    private SubscribeRequest subscribeRequest(String customerId, String asin, int frequency) {
+        return SubscribeRequest.builder()
+                               .withCustomerId(customerId)
+                               .withAsin(asin)
+                               .withFrequency(frequency)
+                               .build();
+    }
+
     @BeforeEach
     @AfterEach
     private void restoreSubscriptions() {
         SubscriptionRestorer.restoreSubscriptions();
     }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitOther(CyclicBarrier barrier) {
+        try {
+            barrier.await(RENDEZVOUS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the other lookup", e);
+        } catch (BrokenBarrierException | TimeoutException e) {
+            throw new IllegalStateException("The other lookup was not in flight at the same time", e);
+        }
+    }
+
+    /**
+     * Local stand-in for a remote identity service, adding a fixed delay to every validation.
+     */
+    private static class DelayedIdentityService extends AmazonIdentityService {
+        private final long delayMillis;
+
+        DelayedIdentityService(long delayMillis) {
+            super(Paths.get(App.DATA_FILE_ROOT_PATH, "customers.txt").toFile());
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public boolean validateCustomer(String customerId) {
+            sleep(delayMillis);
+            return super.validateCustomer(customerId);
+        }
+    }
+
+    /**
+     * Local stand-in for an identity service whose validations wait until another party reaches the barrier.
+     */
+    private static class RendezvousIdentityService extends AmazonIdentityService {
+        private final CyclicBarrier barrier;
+
+        RendezvousIdentityService(CyclicBarrier barrier) {
+            super(Paths.get(App.DATA_FILE_ROOT_PATH, "customers.txt").toFile());
+            this.barrier = barrier;
+        }
+
+        @Override
+        public boolean validateCustomer(String customerId) {
+            awaitOther(barrier);
+            return super.validateCustomer(customerId);
+        }
+    }
+
+    /**
+     * Local stand-in for a product service whose eligibility checks wait until another party reaches the barrier.
+     */
+    private static class RendezvousProductService extends AmazonProductService {
+        private final CyclicBarrier barrier;
+
+        RendezvousProductService(CyclicBarrier barrier) {
+            super(Paths.get(App.DATA_FILE_ROOT_PATH, "catalog.json").toFile());
+            this.barrier = barrier;
+        }
+
+        @Override
+        public Eligibility checkEligibility(String asin) {
+            awaitOther(barrier);
+            return super.checkEligibility(asin);
+        }
+    }
 }
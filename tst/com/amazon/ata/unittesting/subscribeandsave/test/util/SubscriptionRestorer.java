@@ -13,7 +13,8 @@ import java.nio.file.StandardCopyOption;
  */
 public class SubscriptionRestorer {
     /**
-     * Restores the subscriptions data to the same state before/after every test.
+     * Restores the subscriptions data to the same state before/after every test, and tells the application's
+     * storage the file has changed.
      */
     public static void restoreSubscriptions() {
         String subscriptionsFile = "subscriptions.csv";
@@ -24,6 +25,7 @@ public class SubscriptionRestorer {
 
         try {
             Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING);
+            App.getSubscriptionFileStorage().invalidate();
         } catch (IOException e) {
             System.out.println(
                 String.format("Error restoring subscriptions data file '%s' from original '%s': %s",